@@ -0,0 +1,98 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/** An Appendable that encodes text as UTF-8 into one reusable buffer and writes
+ *  the buffer to a channel whenever it fills up. Call flush when done. */
+public class ChannelWriter implements Appendable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Fields
+    private final WritableByteChannel channel; // where the bytes go
+    private final ByteBuffer buffer;           // encoded bytes not yet written
+    private char highSurrogate;                // first half of a surrogate pair split across calls, 0 if none
+
+    /**
+     * Creates a writer for the given channel.
+     * @param channel Channel to write to
+     */
+    public ChannelWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    @Override
+    public ChannelWriter append(CharSequence text) throws IOException {
+        return append(text, 0, text.length());
+    }
+
+    @Override
+    public ChannelWriter append(CharSequence text, int start, int end) throws IOException {
+        for (int i = start; i < end; i++) {
+            append(text.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public ChannelWriter append(char c) throws IOException {
+        if (buffer.remaining() < 4) {
+            drain();
+        }
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int cp = Character.toCodePoint(high, c);
+                buffer.put((byte) (0xF0 | (cp >> 18)));
+                buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (cp & 0x3F)));
+                return this;
+            }
+            buffer.put((byte) '?');
+            if (buffer.remaining() < 4) {
+                drain();
+            }
+        }
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xC0 | (c >> 6)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buffer.put((byte) '?');
+        } else {
+            buffer.put((byte) (0xE0 | (c >> 12)));
+            buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        }
+        return this;
+    }
+
+    /**
+     * Writes every buffered byte to the channel.
+     * @throws IOException If the channel fails
+     */
+    public void flush() throws IOException {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) '?');
+        }
+        drain();
+    }
+
+    /** Writes the buffer out and empties it. */
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
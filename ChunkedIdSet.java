@@ -0,0 +1,270 @@
+/** An immutable sorted set of non-negative int ids, for sets that many threads read while one
+ *  writer at a time replaces them. The ids are split into sorted chunks of at most CHUNK_SIZE
+ *  ids, found through a directory of the first id of each chunk. Adding or removing an id
+ *  returns a new set that copies only the chunk it touches and the directory, and shares every
+ *  other chunk with the old set, so a change costs O(CHUNK_SIZE + size / CHUNK_SIZE) instead of
+ *  the O(size) of copying one flat array. Each id also carries the number of the add that
+ *  inserted it, so the ids can be listed in the order they were added. */
+public class ChunkedIdSet {
+    static final int CHUNK_SIZE = 128;
+    // The empty set
+    static final ChunkedIdSet EMPTY = new ChunkedIdSet(new int[0][], new int[0][], new int[0], 0, 0);
+
+    // Fields
+    private final int[][] ids;    // sorted chunks of ids; no chunk is empty
+    private final int[][] ranks;  // ranks[c][i] is the number of the add that inserted ids[c][i]
+    private final int[] firsts;   // first id of each chunk
+    private final int size;       // number of ids
+    private final int nextRank;   // number given to the next id added
+
+    private ChunkedIdSet(int[][] ids, int[][] ranks, int[] firsts, int size, int nextRank) {
+        this.ids = ids;
+        this.ranks = ranks;
+        this.firsts = firsts;
+        this.size = size;
+        this.nextRank = nextRank;
+    }
+
+    /**
+     * Gets the number of ids in the set.
+     * @return Number of ids
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if an id is in the set, in O(log size) time.
+     * @param id Id to check
+     * @return true if the set contains the id
+     */
+    public boolean contains(int id) {
+        int c = chunkOf(id);
+        return c >= 0 && SortedInts.search(ids[c], 0, ids[c].length, id) >= 0;
+    }
+
+    /**
+     * Gets a set with one more id.
+     * @param id Id to add (must not be negative)
+     * @return New set with the id, or this set if it already holds the id
+     */
+    public ChunkedIdSet with(int id) {
+        if (ids.length == 0) {
+            return new ChunkedIdSet(new int[][] {{id}}, new int[][] {{nextRank}}, new int[] {id}, 1, nextRank + 1);
+        }
+        int c = Math.max(chunkOf(id), 0);
+        int[] chunk = ids[c];
+        int i = SortedInts.search(chunk, 0, chunk.length, id);
+        if (i >= 0) {
+            return this;
+        }
+        i = -i - 1;
+        int[] grownIds = insertAt(chunk, i, id);
+        int[] grownRanks = insertAt(ranks[c], i, nextRank);
+        if (grownIds.length <= CHUNK_SIZE) {
+            int[][] newIds = ids.clone();
+            int[][] newRanks = ranks.clone();
+            int[] newFirsts = firsts.clone();
+            newIds[c] = grownIds;
+            newRanks[c] = grownRanks;
+            newFirsts[c] = grownIds[0];
+            return new ChunkedIdSet(newIds, newRanks, newFirsts, size + 1, nextRank + 1);
+        }
+        // The chunk is full: split it in two halves
+        int half = grownIds.length / 2;
+        int[][] newIds = new int[ids.length + 1][];
+        int[][] newRanks = new int[ids.length + 1][];
+        int[] newFirsts = new int[ids.length + 1];
+        System.arraycopy(ids, 0, newIds, 0, c);
+        System.arraycopy(ranks, 0, newRanks, 0, c);
+        System.arraycopy(firsts, 0, newFirsts, 0, c);
+        newIds[c] = java.util.Arrays.copyOfRange(grownIds, 0, half);
+        newRanks[c] = java.util.Arrays.copyOfRange(grownRanks, 0, half);
+        newFirsts[c] = newIds[c][0];
+        newIds[c + 1] = java.util.Arrays.copyOfRange(grownIds, half, grownIds.length);
+        newRanks[c + 1] = java.util.Arrays.copyOfRange(grownRanks, half, grownRanks.length);
+        newFirsts[c + 1] = newIds[c + 1][0];
+        System.arraycopy(ids, c + 1, newIds, c + 2, ids.length - c - 1);
+        System.arraycopy(ranks, c + 1, newRanks, c + 2, ids.length - c - 1);
+        System.arraycopy(firsts, c + 1, newFirsts, c + 2, ids.length - c - 1);
+        return new ChunkedIdSet(newIds, newRanks, newFirsts, size + 1, nextRank + 1);
+    }
+
+    /**
+     * Gets a set with one id less. A chunk left empty is dropped, and a chunk left small is merged into
+     * a neighbour when they fit in one chunk.
+     * @param id Id to remove
+     * @return New set without the id, or this set if it does not hold the id
+     */
+    public ChunkedIdSet without(int id) {
+        int c = chunkOf(id);
+        if (c < 0) {
+            return this;
+        }
+        int i = SortedInts.search(ids[c], 0, ids[c].length, id);
+        if (i < 0) {
+            return this;
+        }
+        if (size == 1) {
+            return new ChunkedIdSet(EMPTY.ids, EMPTY.ranks, EMPTY.firsts, 0, nextRank);
+        }
+        int[] shrunkIds = removeAt(ids[c], i);
+        int[] shrunkRanks = removeAt(ranks[c], i);
+        if (shrunkIds.length == 0) {
+            return dropChunk(c);
+        }
+        // Merge with the next chunk, or else the previous one, when the two fit in one chunk
+        for (int other = c + 1; other >= c - 1; other -= 2) {
+            if (other >= 0 && other < ids.length && shrunkIds.length + ids[other].length <= CHUNK_SIZE / 2) {
+                return merge(c, shrunkIds, shrunkRanks, other);
+            }
+        }
+        int[][] newIds = ids.clone();
+        int[][] newRanks = ranks.clone();
+        int[] newFirsts = firsts.clone();
+        newIds[c] = shrunkIds;
+        newRanks[c] = shrunkRanks;
+        newFirsts[c] = shrunkIds[0];
+        return new ChunkedIdSet(newIds, newRanks, newFirsts, size - 1, nextRank);
+    }
+
+    /** Gets this set without chunk c, whose only id is being removed. */
+    private ChunkedIdSet dropChunk(int c) {
+        int[][] newIds = new int[ids.length - 1][];
+        int[][] newRanks = new int[ids.length - 1][];
+        int[] newFirsts = new int[ids.length - 1];
+        System.arraycopy(ids, 0, newIds, 0, c);
+        System.arraycopy(ranks, 0, newRanks, 0, c);
+        System.arraycopy(firsts, 0, newFirsts, 0, c);
+        System.arraycopy(ids, c + 1, newIds, c, ids.length - c - 1);
+        System.arraycopy(ranks, c + 1, newRanks, c, ids.length - c - 1);
+        System.arraycopy(firsts, c + 1, newFirsts, c, ids.length - c - 1);
+        return new ChunkedIdSet(newIds, newRanks, newFirsts, size - 1, nextRank);
+    }
+
+    /** Gets this set with chunk c, replaced by its shrunk copy, merged with the adjacent chunk other. */
+    private ChunkedIdSet merge(int c, int[] shrunkIds, int[] shrunkRanks, int other) {
+        int low = Math.min(c, other);
+        int[] lowIds = (low == c) ? shrunkIds : ids[low];
+        int[] lowRanks = (low == c) ? shrunkRanks : ranks[low];
+        int[] highIds = (low == c) ? ids[other] : shrunkIds;
+        int[] highRanks = (low == c) ? ranks[other] : shrunkRanks;
+        int[][] newIds = new int[ids.length - 1][];
+        int[][] newRanks = new int[ids.length - 1][];
+        int[] newFirsts = new int[ids.length - 1];
+        System.arraycopy(ids, 0, newIds, 0, low);
+        System.arraycopy(ranks, 0, newRanks, 0, low);
+        System.arraycopy(firsts, 0, newFirsts, 0, low);
+        newIds[low] = concat(lowIds, highIds);
+        newRanks[low] = concat(lowRanks, highRanks);
+        newFirsts[low] = newIds[low][0];
+        System.arraycopy(ids, low + 2, newIds, low + 1, ids.length - low - 2);
+        System.arraycopy(ranks, low + 2, newRanks, low + 1, ids.length - low - 2);
+        System.arraycopy(firsts, low + 2, newFirsts, low + 1, ids.length - low - 2);
+        return new ChunkedIdSet(newIds, newRanks, newFirsts, size - 1, nextRank);
+    }
+
+    /**
+     * Gets the ids of the set in the order they were added.
+     * @return New array holding every id of the set
+     */
+    public int[] toOrderedArray() {
+        long[] keyed = new long[size];
+        int n = 0;
+        for (int c = 0; c < ids.length; c++) {
+            for (int i = 0; i < ids[c].length; i++) {
+                keyed[n++] = ((long) ranks[c][i] << 32) | ids[c][i];
+            }
+        }
+        java.util.Arrays.sort(keyed);
+        int[] ans = new int[size];
+        for (int i = 0; i < size; i++) {
+            ans[i] = (int) keyed[i];
+        }
+        return ans;
+    }
+
+    /**
+     * Counts the ids that two sets have in common: a merge of the two chunk sequences, or a
+     * lookup of every id of the smaller set when the other is much larger.
+     * @param a First set
+     * @param b Second set
+     * @return Size of the intersection
+     */
+    public static int intersectionSize(ChunkedIdSet a, ChunkedIdSet b) {
+        if (a.size > b.size) {
+            ChunkedIdSet t = a;
+            a = b;
+            b = t;
+        }
+        int count = 0;
+        if ((long) a.size * SortedInts.GALLOP_RATIO < b.size) {
+            for (int c = 0; c < a.ids.length; c++) {
+                for (int i = 0; i < a.ids[c].length; i++) {
+                    if (b.contains(a.ids[c][i])) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+        int ca = 0;
+        int ia = 0;
+        int cb = 0;
+        int ib = 0;
+        while (ca < a.ids.length && cb < b.ids.length) {
+            int x = a.ids[ca][ia];
+            int y = b.ids[cb][ib];
+            if (x <= y) {
+                if (++ia == a.ids[ca].length) {
+                    ca++;
+                    ia = 0;
+                }
+            }
+            if (y <= x) {
+                if (x == y) {
+                    count++;
+                }
+                if (++ib == b.ids[cb].length) {
+                    cb++;
+                    ib = 0;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the chunk whose range holds an id.
+     * @param id Id to look for
+     * @return Index of the last chunk whose first id is not above id, -1 if id is below every chunk
+     */
+    private int chunkOf(int id) {
+        int i = SortedInts.search(firsts, 0, firsts.length, id);
+        return (i >= 0) ? i : -i - 2;
+    }
+
+    /** Copies an array with a value inserted at an index. */
+    private static int[] insertAt(int[] a, int i, int value) {
+        int[] b = new int[a.length + 1];
+        System.arraycopy(a, 0, b, 0, i);
+        b[i] = value;
+        System.arraycopy(a, i, b, i + 1, a.length - i);
+        return b;
+    }
+
+    /** Copies an array without the value at an index. */
+    private static int[] removeAt(int[] a, int i) {
+        int[] b = new int[a.length - 1];
+        System.arraycopy(a, 0, b, 0, i);
+        System.arraycopy(a, i + 1, b, i, a.length - i - 1);
+        return b;
+    }
+
+    /** Copies two arrays into one. */
+    private static int[] concat(int[] a, int[] b) {
+        int[] c = java.util.Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, c, a.length, b.length);
+        return c;
+    }
+}
@@ -0,0 +1,152 @@
+/** A read-only copy of a network's follow graph in compressed sparse row form.
+ *  Users are renumbered densely from 0 to size() - 1 in slot order. The followees of
+ *  user v are outTargets[outOffsets[v]] to outTargets[outOffsets[v + 1] - 1] and its
+ *  followers are inSources[inOffsets[v]] to inSources[inOffsets[v + 1] - 1], both ascending.
+ *  Whole-graph analytics run over these flat arrays instead of the live structures;
+ *  Network caches one copy and rebuilds it after the network changes. */
+public class CompactGraph {
+    // Fields
+    private final int n;            // number of users
+    private final String[] names;   // names by dense id
+    private final int[] slots;      // slot of each dense id in the network
+    private final int[] outOffsets; // n + 1 offsets into outTargets
+    private final int[] outTargets; // followees, by follower
+    private final int[] inOffsets;  // n + 1 offsets into inSources
+    private final int[] inSources;  // followers, by followee
+
+    /**
+     * Copies the follow graph of a network.
+     * @param network Network to copy
+     */
+    CompactGraph(Network network) {
+        int slotLimit = network.slotLimit();
+        int[] dense = new int[slotLimit];
+        int count = 0;
+        long m = 0;
+        for (int slot = 0; slot < slotLimit; slot++) {
+            User user = network.getUserAt(slot);
+            dense[slot] = (user == null) ? -1 : count++;
+            if (user != null) {
+                m += user.getfCount();
+            }
+        }
+        n = count;
+        names = new String[n];
+        slots = new int[n];
+        outOffsets = new int[n + 1];
+        outTargets = new int[(int) m];
+        int[] inDegree = new int[n + 1];
+        int e = 0;
+        for (int slot = 0; slot < slotLimit; slot++) {
+            User user = network.getUserAt(slot);
+            if (user == null) {
+                continue;
+            }
+            int v = dense[slot];
+            names[v] = user.getName();
+            slots[v] = slot;
+            // Dense ids follow slot order, so each sorted followee list stays sorted
+            IdSet followees = user.followees();
+            int start = e;
+            for (int p = 0; p < followees.positions(); p++) {
+                int followee = followees.idAt(p);
+                if (followee >= 0) {
+                    outTargets[e++] = dense[followee];
+                    inDegree[dense[followee]]++;
+                }
+            }
+            if (!followees.isOrdered()) {
+                java.util.Arrays.sort(outTargets, start, e);
+            }
+            outOffsets[v + 1] = e;
+        }
+        inOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] = inOffsets[v] + inDegree[v];
+        }
+        inSources = new int[e];
+        int[] next = java.util.Arrays.copyOf(inOffsets, n);
+        // Visiting followers in ascending order keeps each follower list sorted
+        for (int u = 0; u < n; u++) {
+            for (int i = outOffsets[u]; i < outOffsets[u + 1]; i++) {
+                inSources[next[outTargets[i]]++] = u;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of users.
+     * @return Number of users
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Gets the number of follow edges.
+     * @return Number of edges
+     */
+    public int edgeCount() {
+        return outTargets.length;
+    }
+
+    /**
+     * Gets the name of a user.
+     * @param v Dense id of the user
+     * @return Name of the user
+     */
+    public String nameOf(int v) {
+        return names[v];
+    }
+
+    /**
+     * Gets the slot a user has in the network.
+     * @param v Dense id of the user
+     * @return Slot of the user
+     */
+    public int slotOf(int v) {
+        return slots[v];
+    }
+
+    /**
+     * Finds the dense id of the user in a slot.
+     * @param slot Slot in the network
+     * @return Dense id, -1 if the slot was vacant when the graph was built
+     */
+    public int denseOf(int slot) {
+        int v = java.util.Arrays.binarySearch(slots, slot);
+        return (v < 0) ? -1 : v;
+    }
+
+    /**
+     * Gets the offsets of the followee lists.
+     * @return Array of size() + 1 offsets into outTargets(); must not be modified
+     */
+    int[] outOffsets() {
+        return outOffsets;
+    }
+
+    /**
+     * Gets the followee lists.
+     * @return Followees of every user, ascending per user; must not be modified
+     */
+    int[] outTargets() {
+        return outTargets;
+    }
+
+    /**
+     * Gets the offsets of the follower lists.
+     * @return Array of size() + 1 offsets into inSources(); must not be modified
+     */
+    int[] inOffsets() {
+        return inOffsets;
+    }
+
+    /**
+     * Gets the follower lists.
+     * @return Followers of every user, ascending per user; must not be modified
+     */
+    int[] inSources() {
+        return inSources;
+    }
+}
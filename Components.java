@@ -0,0 +1,227 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/** Splits a follow graph into connected components, in O(n + m) time.
+ *  Weak components ignore the direction of follows. They are found with a concurrent
+ *  union-find: fork-join tasks union the ends of every edge at once, linking roots with
+ *  compare-and-set (always the higher root under the lower one) and compressing paths by
+ *  halving. Strong components, where every member can reach every other along follows,
+ *  are found with Tarjan's algorithm driven by an explicit stack, so deep graphs cannot
+ *  overflow the call stack. Components are numbered in the order of their first member. */
+public class Components {
+    // Users in a union task before it is split in two
+    private static final int SPLIT_USERS = 1 << 12;
+
+    // Fields
+    private final CompactGraph graph; // graph to split
+
+    /**
+     * Creates a component analysis of a graph.
+     * @param graph Graph to split
+     */
+    public Components(CompactGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Labels every user with its weak component, using all cores.
+     * @return Component number of each dense id
+     */
+    public int[] weak() {
+        int n = graph.size();
+        AtomicIntegerArray parent = new AtomicIntegerArray(n);
+        for (int v = 0; v < n; v++) {
+            parent.set(v, v);
+        }
+        if (n > 0) {
+            ForkJoinPool.commonPool().invoke(new UnionRange(parent, 0, n));
+        }
+        int[] labels = new int[n];
+        for (int v = 0; v < n; v++) {
+            labels[v] = find(parent, v);
+        }
+        return renumber(labels);
+    }
+
+    /**
+     * Labels every user with its strong component.
+     * @return Component number of each dense id
+     */
+    public int[] strong() {
+        int n = graph.size();
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
+        int[] order = new int[n];   // discovery order of each user, 0 if not visited yet
+        int[] low = new int[n];     // lowest discovery order reachable through the DFS subtree
+        int[] labels = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];   // Tarjan's stack of users in open components
+        int[] calls = new int[n];   // DFS path, replacing recursion
+        int[] next = new int[n];    // next edge to follow from each user on the DFS path
+        int stackSize = 0;
+        int counter = 0;
+        int components = 0;
+        for (int root = 0; root < n; root++) {
+            if (order[root] != 0) {
+                continue;
+            }
+            int depth = 0;
+            calls[depth++] = root;
+            order[root] = low[root] = ++counter;
+            next[root] = offsets[root];
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth > 0) {
+                int v = calls[depth - 1];
+                if (next[v] < offsets[v + 1]) {
+                    int w = targets[next[v]++];
+                    if (order[w] == 0) {
+                        order[w] = low[w] = ++counter;
+                        next[w] = offsets[w];
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        calls[depth++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], order[w]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (depth > 0) {
+                    int caller = calls[depth - 1];
+                    low[caller] = Math.min(low[caller], low[v]);
+                }
+                if (low[v] == order[v]) {
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack[w] = false;
+                        labels[w] = components;
+                    } while (w != v);
+                    components++;
+                }
+            }
+        }
+        return renumber(labels);
+    }
+
+    /**
+     * Groups the names of the users by component.
+     * @param labels Component number of each dense id, as returned by weak or strong
+     * @return One array of names per component, in component order; names in network order
+     */
+    public String[][] groups(int[] labels) {
+        int count = 0;
+        for (int v = 0; v < labels.length; v++) {
+            count = Math.max(count, labels[v] + 1);
+        }
+        int[] sizes = new int[count];
+        for (int v = 0; v < labels.length; v++) {
+            sizes[labels[v]]++;
+        }
+        String[][] ans = new String[count][];
+        for (int c = 0; c < count; c++) {
+            ans[c] = new String[sizes[c]];
+            sizes[c] = 0;
+        }
+        for (int v = 0; v < labels.length; v++) {
+            ans[labels[v]][sizes[labels[v]]++] = graph.nameOf(v);
+        }
+        return ans;
+    }
+
+    /**
+     * Renumbers component labels 0, 1, 2... in the order of each component's first member.
+     * @param labels Arbitrary component labels between 0 and labels.length - 1
+     * @return The same array, relabelled
+     */
+    private static int[] renumber(int[] labels) {
+        int[] number = new int[labels.length];
+        java.util.Arrays.fill(number, -1);
+        int count = 0;
+        for (int v = 0; v < labels.length; v++) {
+            if (number[labels[v]] == -1) {
+                number[labels[v]] = count++;
+            }
+            labels[v] = number[labels[v]];
+        }
+        return labels;
+    }
+
+    /**
+     * Finds the root of a user's set, halving the path on the way.
+     * @param parent Union-find parents
+     * @param v User to look up
+     * @return Root of the set
+     */
+    private static int find(AtomicIntegerArray parent, int v) {
+        while (true) {
+            int p = parent.get(v);
+            if (p == v) {
+                return v;
+            }
+            int grandparent = parent.get(p);
+            if (p != grandparent) {
+                parent.compareAndSet(v, p, grandparent);
+            }
+            v = grandparent;
+        }
+    }
+
+    /**
+     * Merges the sets of two users. Roots only ever move under lower roots, so concurrent
+     * unions cannot form a cycle.
+     * @param parent Union-find parents
+     * @param a One user
+     * @param b The other user
+     */
+    private static void union(AtomicIntegerArray parent, int a, int b) {
+        while (true) {
+            a = find(parent, a);
+            b = find(parent, b);
+            if (a == b) {
+                return;
+            }
+            if (a < b) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+            if (parent.compareAndSet(a, a, b)) {
+                return;
+            }
+        }
+    }
+
+    /** Unions the ends of every follow edge that starts in a range of users. */
+    private class UnionRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final AtomicIntegerArray parent; // shared union-find parents
+        private final int from;                  // first user
+        private final int to;                    // end of the range (exclusive)
+
+        UnionRange(AtomicIntegerArray parent, int from, int to) {
+            this.parent = parent;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_USERS) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new UnionRange(parent, from, middle), new UnionRange(parent, middle, to));
+                return;
+            }
+            int[] offsets = graph.outOffsets();
+            int[] targets = graph.outTargets();
+            for (int u = from; u < to; u++) {
+                for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                    union(parent, u, targets[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/** A social network that many threads can read and update at the same time.
+ *  Users are found through a concurrent name index, keyed by the case-folded name, and are
+ *  numbered from an atomic counter. Each user's followees are an immutable ChunkedIdSet that is
+ *  replaced when the user follows or unfollows someone: writers build the new set under a lock
+ *  striped by the follower's id, copying only the chunk they touch, so even a user following
+ *  millions holds the lock for O(chunk + degree / chunk) work. Readers simply read the current
+ *  set, so getUser, follows and countMutual never block, whoever is writing.
+ *  Follower counts are atomic counters. */
+public class ConcurrentNetwork {
+    // Number of follow locks; a power of two
+    private static final int STRIPES = 64;
+
+    /** A user of the network. */
+    private static final class Member {
+        final String name;                         // name as first added
+        final int id;                              // position in members
+        volatile ChunkedIdSet followees = ChunkedIdSet.EMPTY; // ids of the followees; replaced on every change
+        final AtomicInteger followers = new AtomicInteger(); // number of users following this one
+
+        Member(String name, int id) {
+            this.name = name;
+            this.id = id;
+        }
+    }
+
+    // Fields
+    private final ConcurrentHashMap<String, Member> index; // case-folded name -> member
+    private volatile AtomicReferenceArray<Member> members; // members by id; replaced by a larger copy when full
+    private final AtomicInteger nextId;    // id of the next member
+    private final AtomicInteger userCount; // number of users, never above maxUserCount
+    private final int maxUserCount;        // maximum number of users the network can hold
+    private final Object[] stripes;        // follow locks, one per group of followers
+    private final Object growLock;         // held while members is being replaced
+
+    /**
+     * Creates a network whose user store grows without a fixed limit.
+     */
+    public ConcurrentNetwork() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a network with a given maximum number of users.
+     * @param maxUserCount Maximum number of users the network can hold
+     */
+    public ConcurrentNetwork(int maxUserCount) {
+        this.index = new ConcurrentHashMap<>();
+        this.members = new AtomicReferenceArray<>(Math.min(Math.max(maxUserCount, 1), 16));
+        this.nextId = new AtomicInteger();
+        this.userCount = new AtomicInteger();
+        this.maxUserCount = maxUserCount;
+        this.stripes = new Object[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        this.growLock = new Object();
+    }
+
+    /**
+     * Gets the current number of users in the network.
+     * @return Number of users currently in the network
+     */
+    public int getUserCount() {
+        return userCount.get();
+    }
+
+    /**
+     * Finds the user with the given name.
+     * @param name Name of user to find (case-insensitive)
+     * @return Name of the user as it was added, null if not found
+     */
+    public String getUser(String name) {
+        Member member = find(name);
+        return (member == null) ? null : member.name;
+    }
+
+    /**
+     * Adds a new user to the network. When several threads add the same name at once, exactly one succeeds.
+     * @param name Name of new user
+     * @return true if user added successfully, false if network is full or user exists
+     */
+    public boolean addUser(String name) {
+        if (name == null) {
+            return false;
+        }
+        boolean[] added = new boolean[1];
+        index.computeIfAbsent(NameTable.fold(name), key -> {
+            if (!reserveUser()) {
+                return null;
+            }
+            Member member = new Member(name, nextId.getAndIncrement());
+            register(member);
+            added[0] = true;
+            return member;
+        });
+        return added[0];
+    }
+
+    /**
+     * Makes one user follow another.
+     * @param name1 Name of user who will follow
+     * @param name2 Name of user to be followed
+     * @return true if follow relationship created successfully, false otherwise
+     */
+    public boolean addFollowee(String name1, String name2) {
+        Member user = find(name1);
+        Member followee = find(name2);
+        if (user == null || followee == null || user == followee) {
+            return false;
+        }
+        synchronized (stripes[user.id & (STRIPES - 1)]) {
+            ChunkedIdSet current = user.followees;
+            ChunkedIdSet next = current.with(followee.id);
+            if (next == current) {
+                return false;
+            }
+            user.followees = next;
+        }
+        followee.followers.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Makes one user stop following another.
+     * @param name1 Name of user who unfollows
+     * @param name2 Name of user to unfollow
+     * @return true if the follow relationship was removed, false if it did not exist
+     */
+    public boolean removeFollowee(String name1, String name2) {
+        Member user = find(name1);
+        Member followee = find(name2);
+        if (user == null || followee == null) {
+            return false;
+        }
+        synchronized (stripes[user.id & (STRIPES - 1)]) {
+            ChunkedIdSet current = user.followees;
+            ChunkedIdSet next = current.without(followee.id);
+            if (next == current) {
+                return false;
+            }
+            user.followees = next;
+        }
+        followee.followers.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Checks if one user follows another.
+     * @param name1 Name of the user who may follow
+     * @param name2 Name of the user who may be followed
+     * @return true if both users exist and the first follows the second
+     */
+    public boolean follows(String name1, String name2) {
+        Member user = find(name1);
+        Member followee = find(name2);
+        if (user == null || followee == null) {
+            return false;
+        }
+        return user.followees.contains(followee.id);
+    }
+
+    /**
+     * Checks if two users follow each other.
+     * @param name1 Name of the first user
+     * @param name2 Name of the second user
+     * @return true if users mutually follow each other
+     */
+    public boolean isFriendOf(String name1, String name2) {
+        return follows(name1, name2) && follows(name2, name1);
+    }
+
+    /**
+     * Counts mutual followees between two users, from the followee sets current when the call starts.
+     * @param name1 Name of the first user
+     * @param name2 Name of the second user
+     * @return Number of mutual followees, 0 if either user does not exist
+     */
+    public int countMutual(String name1, String name2) {
+        Member a = find(name1);
+        Member b = find(name2);
+        if (a == null || b == null) {
+            return 0;
+        }
+        return ChunkedIdSet.intersectionSize(a.followees, b.followees);
+    }
+
+    /**
+     * Gets the number of users a user follows.
+     * @param name Name of the user
+     * @return Count of followees, 0 if the user does not exist
+     */
+    public int getfCount(String name) {
+        Member member = find(name);
+        return (member == null) ? 0 : member.followees.size();
+    }
+
+    /**
+     * Finds the most followed user in the network, reading each follower counter once.
+     * Ties go to the user who was added to the network first.
+     * @return Name of user with most followers, null if network is empty
+     */
+    public String mostPopularUser() {
+        AtomicReferenceArray<Member> current = members;
+        Member best = null;
+        int bestCount = -1;
+        int limit = Math.min(nextId.get(), current.length());
+        for (int i = 0; i < limit; i++) {
+            Member member = current.get(i);
+            if (member != null) {
+                int count = member.followers.get();
+                if (count > bestCount) {
+                    best = member;
+                    bestCount = count;
+                }
+            }
+        }
+        return (best == null) ? null : best.name;
+    }
+
+    /**
+     * Creates a string representation of the network, in the format of Network.toString.
+     * Each user's followees are read once and listed in the order they were followed, so the text
+     * never shows a half-applied change of one user.
+     * @return String describing all users and their followees
+     */
+    public String toString() {
+        AtomicReferenceArray<Member> current = members;
+        StringBuilder ans = new StringBuilder("Network:");
+        int limit = Math.min(nextId.get(), current.length());
+        for (int i = 0; i < limit; i++) {
+            Member member = current.get(i);
+            if (member == null) {
+                continue;
+            }
+            ans.append('\n').append(member.name).append(" -> ");
+            int[] followees = member.followees.toOrderedArray();
+            for (int f = 0; f < followees.length; f++) {
+                ans.append(memberAt(followees[f]).name).append(' ');
+            }
+        }
+        return ans.toString();
+    }
+
+    /**
+     * Looks a user up by name.
+     * @param name Name of the user (case-insensitive)
+     * @return The member, null if not found
+     */
+    private Member find(String name) {
+        return (name == null) ? null : index.get(NameTable.fold(name));
+    }
+
+    /**
+     * Gets a member by id. The members array is read afresh, so any id seen in a followee set resolves.
+     * @param id Id of a member
+     * @return The member
+     */
+    private Member memberAt(int id) {
+        return members.get(id);
+    }
+
+    /**
+     * Counts a new user against maxUserCount.
+     * @return true if there was room, false if the network is full
+     */
+    private boolean reserveUser() {
+        while (true) {
+            int count = userCount.get();
+            if (count >= maxUserCount) {
+                return false;
+            }
+            if (userCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Stores a new member under its id, growing the members array if needed.
+     * @param member Member to store
+     */
+    private void register(Member member) {
+        synchronized (growLock) {
+            AtomicReferenceArray<Member> current = members;
+            if (member.id >= current.length()) {
+                int capacity = (int) Math.min(Math.max(2L * current.length(), member.id + 1L), Integer.MAX_VALUE);
+                AtomicReferenceArray<Member> grown = new AtomicReferenceArray<>(capacity);
+                for (int i = 0; i < current.length(); i++) {
+                    grown.set(i, current.get(i));
+                }
+                current = grown;
+            }
+            current.set(member.id, member);
+            members = current;
+        }
+    }
+}
@@ -0,0 +1,389 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** Builds a network from a text file of follow edges, one "follower followee" pair per line.
+ *  Names are separated by spaces, tabs or commas; blank lines and lines starting with '#'
+ *  are ignored, and lines without exactly two names are counted as malformed and skipped.
+ *  The file is split into newline-aligned chunks that are memory-mapped and scanned in
+ *  parallel on a fork-join pool, each chunk de-duplicating its names in a byte-level hash
+ *  table. The chunks are then merged into one name dictionary and the adjacency is built
+ *  in a single counting pass. Repeated edges and self-follows are dropped, and each user's
+ *  followees keep the order in which the file lists them. */
+public class EdgeListLoader {
+    private static final int MIN_CHUNK = 1 << 20;
+
+    // Fields
+    private final ForkJoinPool pool; // pool that scans the chunks
+    private long lines;              // lines read by the last load
+    private long malformedLines;     // lines skipped because they did not hold two names
+    private long edges;              // distinct follow edges added by the last load
+    private int users;               // users created by the last load
+    private long elapsedNanos;       // duration of the last load
+
+    /**
+     * Creates a loader that scans on the common fork-join pool.
+     */
+    public EdgeListLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a loader that scans on the given pool.
+     * @param pool Pool to run the chunk scanners on
+     */
+    public EdgeListLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Reads an edge-list file into a new network that can grow without limit.
+     * @param path File to read
+     * @return Network holding every user and follow edge in the file
+     * @throws IOException If the file cannot be read
+     */
+    public Network load(Path path) throws IOException {
+        long start = System.nanoTime();
+        List<Chunk> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long target = Math.max(MIN_CHUNK, size / (4L * pool.getParallelism()) + 1);
+            target = Math.min(target, Integer.MAX_VALUE / 2);
+            long from = 0;
+            while (from < size) {
+                long to = lineEnd(channel, Math.min(size, from + target), size);
+                chunks.add(new Chunk(channel.map(FileChannel.MapMode.READ_ONLY, from, to - from)));
+                from = to;
+            }
+            pool.invoke(new ScanAll(chunks, 0, chunks.size()));
+        }
+        Network network = merge(chunks);
+        elapsedNanos = System.nanoTime() - start;
+        return network;
+    }
+
+    /**
+     * Gets the number of lines read by the last load.
+     * @return Number of lines
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * Gets the number of lines the last load skipped because they did not hold exactly two names.
+     * @return Number of malformed lines
+     */
+    public long getMalformedLines() {
+        return malformedLines;
+    }
+
+    /**
+     * Gets the number of distinct follow edges created by the last load.
+     * @return Number of edges
+     */
+    public long getEdges() {
+        return edges;
+    }
+
+    /**
+     * Gets the number of users created by the last load.
+     * @return Number of users
+     */
+    public int getUsers() {
+        return users;
+    }
+
+    /**
+     * Gets the duration of the last load.
+     * @return Elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the throughput of the last load.
+     * @return Lines read per second
+     */
+    public double getLinesPerSecond() {
+        return (elapsedNanos == 0) ? 0 : lines * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Describes the last load in one line.
+     * @return Report with counts, duration and lines per second
+     */
+    public String report() {
+        return String.format("%d lines (%d malformed), %d users, %d edges in %.1f ms: %.0f lines/s",
+                lines, malformedLines, users, edges, elapsedNanos / 1e6, getLinesPerSecond());
+    }
+
+    /** Finds the position just after the first newline at or after pos, or size if there is none. */
+    private static long lineEnd(FileChannel channel, long pos, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        while (pos < size) {
+            window.clear();
+            int read = channel.read(window, pos);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    /** Combines the scanned chunks into one name dictionary and builds the network's adjacency. */
+    private Network merge(List<Chunk> chunks) {
+        NameTable dictionary = new NameTable(1024);
+        lines = 0;
+        malformedLines = 0;
+        long pairs = 0;
+        for (Chunk chunk : chunks) {
+            lines += chunk.lines;
+            malformedLines += chunk.malformed;
+            pairs += chunk.edgeCount;
+            chunk.globalIds = new int[chunk.nameCount];
+            for (int i = 0; i < chunk.nameCount; i++) {
+                String name = new String(chunk.pool, chunk.nameStart[i], chunk.nameLength[i], StandardCharsets.UTF_8);
+                chunk.globalIds[i] = dictionary.intern(name);
+            }
+        }
+        if (pairs > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Too many edges to load: " + pairs);
+        }
+        int n = dictionary.size();
+        int[] offsets = new int[n + 1];
+        for (Chunk chunk : chunks) {
+            for (int e = 0; e < chunk.edgeCount; e++) {
+                offsets[chunk.globalIds[chunk.edgePairs[2 * e]] + 1]++;
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+        int[] next = java.util.Arrays.copyOf(offsets, n);
+        int[] targets = new int[(int) pairs];
+        for (Chunk chunk : chunks) {
+            for (int e = 0; e < chunk.edgeCount; e++) {
+                int u = chunk.globalIds[chunk.edgePairs[2 * e]];
+                targets[next[u]++] = chunk.globalIds[chunk.edgePairs[2 * e + 1]];
+            }
+        }
+        // Drop repeats and self-follows, keeping each user's followees in file order, and compact in place
+        int[] seenBy = new int[n]; // seenBy[v] is u + 1 once v was kept as a followee of u
+        int write = 0;
+        for (int u = 0; u < n; u++) {
+            int from = offsets[u];
+            int to = offsets[u + 1];
+            offsets[u] = write;
+            for (int e = from; e < to; e++) {
+                int v = targets[e];
+                if (v != u && seenBy[v] != u + 1) {
+                    seenBy[v] = u + 1;
+                    targets[write++] = v;
+                }
+            }
+        }
+        offsets[n] = write;
+        String[] names = new String[n];
+        for (int u = 0; u < n; u++) {
+            names[u] = dictionary.nameOf(u);
+        }
+        users = n;
+        edges = write;
+        return Network.fromAdjacency(names, n, Integer.MAX_VALUE, offsets, targets);
+    }
+
+    /** Splits the chunk list in halves until each task scans one chunk. */
+    private static class ScanAll extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Chunk> chunks;
+        private final int from;
+        private final int to;
+
+        ScanAll(List<Chunk> chunks, int from, int to) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                chunks.get(from).scan();
+            } else if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ScanAll(chunks, from, mid), new ScanAll(chunks, mid, to));
+            }
+        }
+    }
+
+    /** One newline-aligned region of the file, with the names and edges found in it.
+     *  Names are numbered locally by a byte-level hash table; equal names differing only in
+     *  ASCII case share a local number, and the merge step folds any other case differences. */
+    private static class Chunk {
+        private final MappedByteBuffer bytes; // the region of the file
+        private byte[] pool = new byte[1 << 12]; // bytes of every distinct name, back to back
+        private int poolSize;
+        private int[] nameStart = new int[256];   // start of each local name in pool
+        private int[] nameLength = new int[256];  // length of each local name
+        private int[] nameHash = new int[256];    // hash of each local name
+        private int nameCount;
+        private int[] table = new int[1024];      // open-addressing table of local name number + 1, 0 when empty
+        private int[] edgePairs = new int[1024];  // follower and followee local numbers of each edge
+        private int edgeCount;
+        private long lines;
+        private long malformed;
+        private int[] globalIds;                  // filled by the merge: global id of each local name
+
+        Chunk(MappedByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        /** Scans every line of the chunk. */
+        void scan() {
+            int limit = bytes.limit();
+            int pos = 0;
+            while (pos < limit) {
+                lines++;
+                int firstStart = 0;
+                int firstEnd = 0;
+                int secondStart = 0;
+                int secondEnd = 0;
+                int tokens = 0;
+                byte b = 0;
+                while (pos < limit && (b = bytes.get(pos)) != '\n') {
+                    if (isSeparator(b)) {
+                        pos++;
+                        continue;
+                    }
+                    if (tokens == 0 && b == '#') {
+                        tokens = -1;
+                    }
+                    int start = pos;
+                    while (pos < limit && (b = bytes.get(pos)) != '\n' && !isSeparator(b)) {
+                        pos++;
+                    }
+                    if (tokens >= 0) {
+                        if (tokens == 0) {
+                            firstStart = start;
+                            firstEnd = pos;
+                        } else if (tokens == 1) {
+                            secondStart = start;
+                            secondEnd = pos;
+                        }
+                        tokens++;
+                    }
+                }
+                pos++; // skip the newline
+                if (tokens == 2) {
+                    addEdge(intern(firstStart, firstEnd), intern(secondStart, secondEnd));
+                } else if (tokens > 0) {
+                    malformed++;
+                }
+            }
+        }
+
+        /** Checks whether a byte separates names; carriage returns count so that CRLF files work. */
+        private static boolean isSeparator(byte b) {
+            return b == ' ' || b == '\t' || b == ',' || b == '\r';
+        }
+
+        /** Gets the local number of the name in bytes[start..end), adding it if new. */
+        private int intern(int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + lower(bytes.get(i));
+            }
+            hash ^= hash >>> 16;
+            int mask = table.length - 1;
+            int i = hash & mask;
+            while (table[i] != 0) {
+                int id = table[i] - 1;
+                if (nameHash[id] == hash && sameName(id, start, end)) {
+                    return id;
+                }
+                i = (i + 1) & mask;
+            }
+            int length = end - start;
+            if (poolSize + length > pool.length) {
+                pool = java.util.Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+            }
+            for (int k = 0; k < length; k++) {
+                pool[poolSize + k] = bytes.get(start + k);
+            }
+            if (nameCount == nameStart.length) {
+                nameStart = java.util.Arrays.copyOf(nameStart, nameCount * 2);
+                nameLength = java.util.Arrays.copyOf(nameLength, nameCount * 2);
+                nameHash = java.util.Arrays.copyOf(nameHash, nameCount * 2);
+            }
+            int id = nameCount++;
+            nameStart[id] = poolSize;
+            nameLength[id] = length;
+            nameHash[id] = hash;
+            poolSize += length;
+            table[i] = id + 1;
+            if (nameCount * 2 > table.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        /** Compares a local name with bytes[start..end), ignoring ASCII case. */
+        private boolean sameName(int id, int start, int end) {
+            if (nameLength[id] != end - start) {
+                return false;
+            }
+            int p = nameStart[id];
+            for (int i = start; i < end; i++, p++) {
+                if (lower(pool[p]) != lower(bytes.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** Lower-cases an ASCII letter; other bytes are returned unchanged. */
+        private static int lower(byte b) {
+            return (b >= 'A' && b <= 'Z') ? b + ('a' - 'A') : b;
+        }
+
+        /** Doubles the local name table. */
+        private void rehash() {
+            table = new int[table.length * 2];
+            int mask = table.length - 1;
+            for (int id = 0; id < nameCount; id++) {
+                int i = nameHash[id] & mask;
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = id + 1;
+            }
+        }
+
+        /** Records an edge between two local names. */
+        private void addEdge(int follower, int followee) {
+            if (2 * edgeCount + 2 > edgePairs.length) {
+                edgePairs = java.util.Arrays.copyOf(edgePairs, edgePairs.length * 2);
+            }
+            edgePairs[2 * edgeCount] = follower;
+            edgePairs[2 * edgeCount + 1] = followee;
+            edgeCount++;
+        }
+    }
+}
@@ -0,0 +1,651 @@
+/** An adaptive set of non-negative int ids, such as the users a user follows.
+ *  The representation changes with the size of the set:
+ *  up to two ids are kept in fields with no array at all; small sets are kept in a
+ *  sorted array; large sets become a bitmap when their ids are dense and an
+ *  open-addressing hash set otherwise. Large sets shrink back to a sorted array
+ *  when enough ids are removed. A set can also keep the order in which its ids were
+ *  added, such as the order in which a user followed others: a TINY set keeps it in a
+ *  flag, a larger set in a list where removed ids leave an empty entry. A long list also
+ *  gets an index from id to entry, so a removal finds its entry in O(1) time, and the
+ *  list is compacted once it holds more empty entries than ids. */
+public class IdSet {
+    // Representations
+    private static final int TINY = 0;   // ids in the fields first and second
+    private static final int ARRAY = 1;  // ids sorted in ids[0..size-1]
+    private static final int BITMAP = 2; // id i is present when bit i of bits is set
+    private static final int HASH = 3;   // ids in the open-addressing table ids, EMPTY and REMOVED mark free buckets
+
+    // A sorted array holds at most this many ids before the set switches to a bitmap or a hash set
+    static final int ARRAY_LIMIT = 128;
+    // A bitmap is used while it needs at most this many bits per id (an array needs 32)
+    private static final int BITS_PER_ID = 32;
+    private static final int EMPTY = -1;
+    private static final int REMOVED = -2;
+
+    // Fields
+    private int mode;   // current representation
+    private int size;   // number of ids in the set
+    private int first;  // smaller id of a TINY set
+    private int second; // larger id of a TINY set
+    private int[] ids;  // sorted ids of an ARRAY set, or the table of a HASH set
+    private long[] bits; // words of a BITMAP set
+    private int maxId;  // largest id ever added to a HASH set
+    private int used;   // buckets of a HASH set that are not EMPTY (ids and REMOVED markers)
+    private boolean keepOrder; // true if the set keeps the order in which ids are added
+    private boolean reversed;  // for a TINY set that keeps order: second was added before first
+    private int[] order;       // ids in the order they were added, EMPTY for removed ones; null for a TINY set
+    private int orderLength;   // entries used in order
+    private int[] orderIndex;  // for a long order list: entries of order by hash of their id, EMPTY for a free bucket; else null
+    private int indexUsed;     // buckets of orderIndex that are not EMPTY
+
+    /**
+     * Creates an empty set.
+     */
+    public IdSet() {
+        mode = TINY;
+        size = 0;
+    }
+
+    /**
+     * Creates an empty set that may keep the order in which ids are added.
+     * @param keepOrder true to remember the order of the ids, at the cost of about one more int per id
+     *                  beyond two ids, and a few more for sets longer than ARRAY_LIMIT
+     */
+    public IdSet(boolean keepOrder) {
+        this();
+        this.keepOrder = keepOrder;
+    }
+
+    /**
+     * Creates a set holding a run of ids that are already sorted and distinct, in the representation that suits them.
+     * @param sorted Array holding the ids in ascending order
+     * @param from Index of the first id
+     * @param to End of the run (exclusive)
+     * @return New set with the ids
+     */
+    public static IdSet ofSorted(int[] sorted, int from, int to) {
+        IdSet set = new IdSet();
+        int n = to - from;
+        if (n <= 2) {
+            for (int i = from; i < to; i++) {
+                set.add(sorted[i]);
+            }
+            return set;
+        }
+        set.size = n;
+        if (n <= ARRAY_LIMIT) {
+            set.mode = ARRAY;
+            set.ids = java.util.Arrays.copyOfRange(sorted, from, to);
+            return set;
+        }
+        int largestId = sorted[to - 1];
+        if ((long) n * BITS_PER_ID >= largestId + 1L) {
+            set.mode = BITMAP;
+            set.bits = new long[(largestId >> 6) + 1];
+            for (int i = from; i < to; i++) {
+                set.bits[sorted[i] >> 6] |= 1L << sorted[i];
+            }
+        } else {
+            set.mode = HASH;
+            set.maxId = largestId;
+            set.rehashFrom(java.util.Arrays.copyOfRange(sorted, from, to), n * 4);
+        }
+        return set;
+    }
+
+    /**
+     * Creates a set that keeps order from a run of distinct ids given in the order they were added.
+     * @param ordered Array holding the ids in the order they were added
+     * @param from Index of the first id
+     * @param to End of the run (exclusive)
+     * @return New set with the ids
+     * @throws IllegalArgumentException If an id is negative or repeats
+     */
+    public static IdSet ofOrdered(int[] ordered, int from, int to) {
+        int[] sorted = java.util.Arrays.copyOfRange(ordered, from, to);
+        java.util.Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] < 0 || (i > 0 && sorted[i] == sorted[i - 1])) {
+                throw new IllegalArgumentException("Bad id " + sorted[i]);
+            }
+        }
+        IdSet set = ofSorted(sorted, 0, sorted.length);
+        set.keepOrder = true;
+        if (sorted.length <= 2) {
+            set.reversed = sorted.length == 2 && ordered[from] > ordered[from + 1];
+        } else {
+            set.order = java.util.Arrays.copyOfRange(ordered, from, to);
+            set.orderLength = sorted.length;
+            set.rebuildOrderIndex();
+        }
+        return set;
+    }
+
+    /**
+     * Creates an independent copy of the set, in the same representation.
+     * @return New set with the same ids
+     */
+    public IdSet copy() {
+        IdSet set = new IdSet();
+        set.mode = mode;
+        set.size = size;
+        set.first = first;
+        set.second = second;
+        set.ids = (ids == null) ? null : ids.clone();
+        set.bits = (bits == null) ? null : bits.clone();
+        set.maxId = maxId;
+        set.used = used;
+        set.keepOrder = keepOrder;
+        set.reversed = reversed;
+        set.order = (order == null) ? null : order.clone();
+        set.orderLength = orderLength;
+        set.orderIndex = (orderIndex == null) ? null : orderIndex.clone();
+        set.indexUsed = indexUsed;
+        return set;
+    }
+
+    /**
+     * Gets the number of ids in the set.
+     * @return Number of ids
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if an id is in the set.
+     * @param id Id to check
+     * @return true if the set contains the id
+     */
+    public boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        switch (mode) {
+            case TINY:
+                return (size > 0 && first == id) || (size > 1 && second == id);
+            case ARRAY:
+                return SortedInts.search(ids, 0, size, id) >= 0;
+            case BITMAP:
+                return (id >> 6) < bits.length && (bits[id >> 6] & (1L << id)) != 0;
+            default:
+                return ids[bucketOf(id)] == id;
+        }
+    }
+
+    /**
+     * Adds an id to the set.
+     * @param id Id to add (must not be negative)
+     * @return true if the id was added, false if it was already in the set
+     */
+    public boolean add(int id) {
+        if (id < 0 || contains(id)) {
+            return false;
+        }
+        if (keepOrder && size == 2) {
+            // The set leaves TINY: move the order from the flag to a list
+            order = new int[4];
+            order[0] = reversed ? second : first;
+            order[1] = reversed ? first : second;
+            orderLength = 2;
+            reversed = false;
+        }
+        insert(id);
+        if (keepOrder) {
+            if (order == null) {
+                reversed = (size == 2 && first == id);
+            } else {
+                appendOrder(id);
+            }
+        }
+        return true;
+    }
+
+    /** Adds an id that is not in the set to its current representation, growing or switching it as needed. */
+    private void insert(int id) {
+        switch (mode) {
+            case TINY:
+                if (size == 0) {
+                    first = id;
+                } else if (size == 1) {
+                    second = Math.max(first, id);
+                    first = Math.min(first, id);
+                } else {
+                    ids = new int[4];
+                    ids[0] = first;
+                    ids[1] = second;
+                    mode = ARRAY;
+                    insertSorted(id);
+                    break;
+                }
+                size++;
+                break;
+            case ARRAY:
+                if (size == ARRAY_LIMIT) {
+                    grow(Math.max(id, ids[size - 1]));
+                    insert(id);
+                    return;
+                }
+                insertSorted(id);
+                break;
+            case BITMAP:
+                if ((id >> 6) >= bits.length) {
+                    if ((long) (size + 1) * BITS_PER_ID < id + 1L) {
+                        toHash(id);
+                        insert(id);
+                        return;
+                    }
+                    bits = java.util.Arrays.copyOf(bits, Math.max(bits.length * 2, (id >> 6) + 1));
+                }
+                bits[id >> 6] |= 1L << id;
+                size++;
+                break;
+            default:
+                if ((used + 1) * 2 > ids.length) {
+                    rehash(Math.max(size + 1, ARRAY_LIMIT) * 4);
+                }
+                int i = bucketOf(id);
+                if (ids[i] == EMPTY) {
+                    used++;
+                }
+                ids[i] = id;
+                size++;
+                maxId = Math.max(maxId, id);
+                if ((long) size * BITS_PER_ID >= maxId + 1L) {
+                    toBitmap(maxId);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Removes an id from the set.
+     * @param id Id to remove
+     * @return true if the id was removed, false if it was not in the set
+     */
+    public boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        if (order != null) {
+            removeOrder(id);
+        }
+        switch (mode) {
+            case TINY:
+                if (first == id) {
+                    first = second;
+                }
+                break;
+            case ARRAY:
+                int i = SortedInts.search(ids, 0, size, id);
+                System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+                break;
+            case BITMAP:
+                bits[id >> 6] &= ~(1L << id);
+                break;
+            default:
+                ids[bucketOf(id)] = REMOVED;
+                break;
+        }
+        size--;
+        if (mode >= BITMAP && size <= ARRAY_LIMIT / 2) {
+            int[] sorted = toSortedArray();
+            ids = java.util.Arrays.copyOf(sorted, ARRAY_LIMIT);
+            bits = null;
+            mode = ARRAY;
+        } else if (mode == ARRAY && size <= 2) {
+            first = ids[0];
+            second = ids[1];
+            ids = null;
+            mode = TINY;
+        }
+        if (order != null && size <= 2) {
+            // Back to two ids: move the order from the list to the flag
+            int older = -1;
+            for (int i = 0; i < orderLength && older == -1; i++) {
+                older = order[i];
+            }
+            reversed = (size == 2 && older == second);
+            order = null;
+            orderIndex = null;
+            orderLength = 0;
+        } else if (order == null) {
+            reversed = false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the ids of the set in ascending order.
+     * @return New array holding every id of the set
+     */
+    public int[] toSortedArray() {
+        int[] result = new int[size];
+        switch (mode) {
+            case TINY:
+                if (size > 0) {
+                    result[0] = first;
+                }
+                if (size > 1) {
+                    result[1] = second;
+                }
+                break;
+            case ARRAY:
+                System.arraycopy(ids, 0, result, 0, size);
+                break;
+            default:
+                int n = 0;
+                for (int p = 0; p < positions(); p++) {
+                    int id = idAt(p);
+                    if (id >= 0) {
+                        result[n++] = id;
+                    }
+                }
+                if (mode == HASH) {
+                    java.util.Arrays.sort(result);
+                }
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether the set keeps the order in which its ids were added.
+     * @return true if the set was created to keep order
+     */
+    public boolean keepsOrder() {
+        return keepOrder;
+    }
+
+    /**
+     * Gets the number of entries to scan when iterating over a set that keeps order with orderedAt.
+     * @return Number of entries, between size() and 2 * size()
+     */
+    public int orderPositions() {
+        return (order == null) ? size : orderLength;
+    }
+
+    /**
+     * Gets the id at an entry of the order list, for a set that keeps order.
+     * Entries hold ids in the order they were added.
+     * @param position Entry between 0 and orderPositions() - 1, 0 being the oldest
+     * @return The id, or -1 if the id of that entry was removed
+     */
+    public int orderedAt(int position) {
+        if (order == null) {
+            return ((position == 0) != reversed) ? first : second;
+        }
+        return order[position];
+    }
+
+    /**
+     * Gets the ids of the set in the order they were added, or in ascending order if the set does not keep order.
+     * @return New array holding every id of the set
+     */
+    public int[] toOrderedArray() {
+        if (!keepOrder) {
+            return toSortedArray();
+        }
+        int[] result = new int[size];
+        int n = 0;
+        for (int p = 0; p < orderPositions(); p++) {
+            int id = orderedAt(p);
+            if (id >= 0) {
+                result[n++] = id;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether iterating over the positions of the set visits ids in ascending order.
+     * @return true unless the set is a hash set
+     */
+    public boolean isOrdered() {
+        return mode != HASH;
+    }
+
+    /**
+     * Gets the number of positions to scan when iterating over the set with idAt.
+     * @return Number of positions, at least size()
+     */
+    public int positions() {
+        switch (mode) {
+            case TINY:
+            case ARRAY:
+                return size;
+            case BITMAP:
+                return bits.length * 64;
+            default:
+                return ids.length;
+        }
+    }
+
+    /**
+     * Gets the id stored at a position, for iterating over the set without allocating.
+     * Positions of TINY, ARRAY and BITMAP sets hold ids in ascending order; a HASH set has no order.
+     * @param position Position between 0 and positions() - 1
+     * @return Id at that position, or -1 if the position is empty
+     */
+    public int idAt(int position) {
+        switch (mode) {
+            case TINY:
+                return (position == 0) ? first : second;
+            case ARRAY:
+                return ids[position];
+            case BITMAP:
+                return ((bits[position >> 6] & (1L << position)) != 0) ? position : -1;
+            default:
+                return (ids[position] >= 0) ? ids[position] : -1;
+        }
+    }
+
+    /**
+     * Counts the ids that two sets have in common, choosing the cheapest strategy for their representations:
+     * a merge or gallop over two sorted arrays, a word-by-word AND with popcount over two bitmaps,
+     * and otherwise a probe of the larger set with every id of the smaller one.
+     * @param a First set
+     * @param b Second set
+     * @return Size of the intersection
+     */
+    public static int intersectionSize(IdSet a, IdSet b) {
+        if (a.size > b.size) {
+            IdSet t = a;
+            a = b;
+            b = t;
+        }
+        if (a.size == 0) {
+            return 0;
+        }
+        if (a.mode == ARRAY && b.mode == ARRAY) {
+            return SortedInts.intersectionSize(a.ids, a.size, b.ids, b.size);
+        }
+        int count = 0;
+        if (a.mode == BITMAP && b.mode == BITMAP) {
+            int words = Math.min(a.bits.length, b.bits.length);
+            for (int w = 0; w < words; w++) {
+                count += Long.bitCount(a.bits[w] & b.bits[w]);
+            }
+            return count;
+        }
+        int positions = a.positions();
+        for (int p = 0; p < positions; p++) {
+            int id = a.idAt(p);
+            if (id >= 0 && b.contains(id)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Appends a new id to the order list, indexing it once the list is long. */
+    private void appendOrder(int id) {
+        if (orderLength == order.length) {
+            order = java.util.Arrays.copyOf(order, orderLength * 2);
+        }
+        order[orderLength++] = id;
+        if (orderIndex != null) {
+            if ((indexUsed + 1) * 2 > orderIndex.length) {
+                rebuildOrderIndex();
+            } else {
+                putOrderIndex(orderLength - 1);
+            }
+        } else if (orderLength > ARRAY_LIMIT) {
+            rebuildOrderIndex();
+        }
+    }
+
+    /** Empties the entry of an id of the set in the order list, compacting the list when needed. */
+    private void removeOrder(int id) {
+        if (orderIndex == null) {
+            // A short list has no empty entries: close the gap at once
+            int i = 0;
+            while (order[i] != id) {
+                i++;
+            }
+            System.arraycopy(order, i + 1, order, i, orderLength - i - 1);
+            orderLength--;
+            return;
+        }
+        // The bucket now points to an empty entry, which marks it as free for a later id
+        order[orderIndex[orderBucketOf(id)]] = EMPTY;
+        if (orderLength > 2 * (size - 1)) {
+            int n = 0;
+            for (int i = 0; i < orderLength; i++) {
+                if (order[i] >= 0) {
+                    order[n++] = order[i];
+                }
+            }
+            orderLength = n;
+            rebuildOrderIndex();
+        }
+    }
+
+    /** Rebuilds the order index from the order list, or drops it if the list is short. */
+    private void rebuildOrderIndex() {
+        if (orderLength <= ARRAY_LIMIT) {
+            orderIndex = null;
+            return;
+        }
+        orderIndex = new int[Integer.highestOneBit(orderLength * 3 - 1) << 1];
+        java.util.Arrays.fill(orderIndex, EMPTY);
+        indexUsed = 0;
+        for (int i = 0; i < orderLength; i++) {
+            if (order[i] >= 0) {
+                putOrderIndex(i);
+            }
+        }
+    }
+
+    /** Records an entry of the order list in the order index. */
+    private void putOrderIndex(int entry) {
+        int bucket = orderBucketOf(order[entry]);
+        if (orderIndex[bucket] == EMPTY) {
+            indexUsed++;
+        }
+        orderIndex[bucket] = entry;
+    }
+
+    /**
+     * Finds the bucket of the order index that holds the entry of an id, or the bucket where it should be added.
+     * @param id Id to look for
+     * @return Bucket pointing to the id's entry; otherwise the first bucket on its probe sequence that is EMPTY or points to an empty entry
+     */
+    private int orderBucketOf(int id) {
+        int mask = orderIndex.length - 1;
+        int h = id * 0x9E3779B9;
+        int i = (h ^ (h >>> 16)) & mask;
+        int free = -1;
+        while (orderIndex[i] != EMPTY) {
+            int entryId = order[orderIndex[i]];
+            if (entryId == id) {
+                return i;
+            }
+            if (entryId == EMPTY && free == -1) {
+                free = i;
+            }
+            i = (i + 1) & mask;
+        }
+        return (free == -1) ? i : free;
+    }
+
+    /** Inserts an id that is not yet in an ARRAY set, keeping it sorted. */
+    private void insertSorted(int id) {
+        if (size == ids.length) {
+            ids = java.util.Arrays.copyOf(ids, Math.min(ids.length * 2, ARRAY_LIMIT));
+        }
+        int i = -SortedInts.search(ids, 0, size, id) - 1;
+        System.arraycopy(ids, i, ids, i + 1, size - i);
+        ids[i] = id;
+        size++;
+    }
+
+    /** Moves a full ARRAY set to a bitmap or a hash set, whichever suits ids up to maxId. */
+    private void grow(int largestId) {
+        if ((long) (size + 1) * BITS_PER_ID >= largestId + 1L) {
+            toBitmap(largestId);
+        } else {
+            toHash(largestId);
+        }
+    }
+
+    /** Rebuilds the set as a bitmap that can hold ids up to largestId. */
+    private void toBitmap(int largestId) {
+        int[] sorted = toSortedArray();
+        bits = new long[(largestId >> 6) + 1];
+        for (int i = 0; i < sorted.length; i++) {
+            bits[sorted[i] >> 6] |= 1L << sorted[i];
+        }
+        ids = null;
+        mode = BITMAP;
+    }
+
+    /** Rebuilds the set as a hash set; largestId is an id about to be added. */
+    private void toHash(int largestId) {
+        int[] sorted = toSortedArray();
+        mode = HASH;
+        maxId = largestId;
+        rehashFrom(sorted, Math.max(sorted.length, ARRAY_LIMIT) * 4);
+        bits = null;
+    }
+
+    /** Rebuilds a HASH set into a table with the given number of buckets. */
+    private void rehash(int buckets) {
+        int[] current = toSortedArray();
+        rehashFrom(current, buckets);
+    }
+
+    /** Fills a fresh HASH table with the given ids. */
+    private void rehashFrom(int[] values, int buckets) {
+        int capacity = Integer.highestOneBit(Math.max(buckets - 1, 1)) << 1;
+        ids = new int[capacity];
+        java.util.Arrays.fill(ids, EMPTY);
+        used = 0;
+        for (int i = 0; i < values.length; i++) {
+            ids[bucketOf(values[i])] = values[i];
+            used++;
+        }
+    }
+
+    /**
+     * Finds the bucket of a HASH set that holds an id, or the bucket where it should be added.
+     * @param id Id to look for
+     * @return Bucket holding the id; otherwise the first REMOVED or EMPTY bucket on its probe sequence
+     */
+    private int bucketOf(int id) {
+        int mask = ids.length - 1;
+        int h = id * 0x9E3779B9;
+        int i = (h ^ (h >>> 16)) & mask;
+        int free = -1;
+        while (ids[i] != EMPTY) {
+            if (ids[i] == id) {
+                return i;
+            }
+            if (ids[i] == REMOVED && free == -1) {
+                free = i;
+            }
+            i = (i + 1) & mask;
+        }
+        return (free == -1) ? i : free;
+    }
+}
@@ -0,0 +1,36 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/** A transport that runs every message at once on the calling thread, for tests.
+ *  Results are deterministic and failures surface directly; a lock per shard keeps
+ *  tasks sent to the same shard from overlapping if several threads call in. */
+public class LoopbackTransport implements ShardTransport {
+    // Fields
+    private final Object[] locks; // one lock per shard
+
+    /**
+     * Creates a transport for the given number of shards.
+     * @param shards Number of shards
+     */
+    public LoopbackTransport(int shards) {
+        locks = new Object[shards];
+        for (int i = 0; i < shards; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> send(int shard, Supplier<T> task) {
+        synchronized (locks[shard]) {
+            try {
+                return CompletableFuture.completedFuture(task.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,365 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/** An append-only write-ahead log of the mutations made to a network.
+ *  Every mutation becomes one binary record:
+ *  <pre>
+ *  int length, int crc32 of the payload, then length bytes of payload:
+ *  byte op, int nameLength, UTF-8 name bytes [, int nameLength, UTF-8 name bytes]
+ *  </pre>
+ *  The network appends a record before it applies the change, and each record is written
+ *  to the FileChannel at once, so a crash of the process loses no change it reported.
+ *  Forcing the channel to disk is what survives a crash of the machine, and it is done
+ *  once per group of records rather than once per record (group commit): when a group is
+ *  complete, when the oldest unforced record is older than the maximum delay (checked by a
+ *  background daemon thread), and whenever sync or close is called. Replay stops at the
+ *  first incomplete or damaged record. */
+public class MutationLog implements AutoCloseable {
+    // Record types
+    static final byte ADD_USER = 1;
+    static final byte FOLLOW = 2;
+    static final byte UNFOLLOW = 3;
+    static final byte REMOVE_USER = 4;
+
+    // Records written between forces unless another group size is given
+    public static final int DEFAULT_GROUP_SIZE = 4096;
+    // Longest time a record waits to be forced unless another delay is given
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 10;
+    private static final int BUFFER_SIZE = 1 << 10;
+
+    // Fields
+    private final FileChannel channel; // the log file, opened for appending
+    private ByteBuffer buffer;         // encodes one record at a time
+    private final int groupSize;       // number of records per force
+    private final long maxDelayNanos;  // longest time a record may stay unforced, 0 for no limit
+    private final CRC32 crc;           // reused checksum
+    private final Thread flusher;      // forces records that waited too long, null if there is no delay limit
+    private long appended;             // records written so far
+    private long forced;               // records known to be on disk
+    private long oldestUnforced;       // System.nanoTime() when the first record after forced was written
+    private long forces;               // number of forces so far
+    private boolean closed;            // set by close
+    private IOException failure;       // error of a force by the flusher, reported by the next append
+
+    /**
+     * Opens a log for appending with the default group size and delay, creating the file if needed.
+     * @param path Log file
+     * @throws IOException If the file cannot be opened
+     */
+    public MutationLog(Path path) throws IOException {
+        this(path, DEFAULT_GROUP_SIZE, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    /**
+     * Opens a log for appending with the default delay, creating the file if needed.
+     * @param path Log file
+     * @param groupSize Number of records to write between forces to disk
+     * @throws IOException If the file cannot be opened
+     */
+    public MutationLog(Path path, int groupSize) throws IOException {
+        this(path, groupSize, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    /**
+     * Opens a log for appending, creating the file if needed.
+     * A damaged or incomplete record at the end of the file, left by a crash, is cut off first.
+     * @param path Log file
+     * @param groupSize Number of records to write between forces to disk
+     * @param maxDelayMillis Longest time in milliseconds a record may wait to be forced; 0 for no limit
+     * @throws IOException If the file cannot be opened
+     */
+    public MutationLog(Path path, int groupSize, long maxDelayMillis) throws IOException {
+        long valid = Files.exists(path) ? replay(path, null) : 0;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.channel.truncate(valid);
+        this.channel.position(valid);
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.groupSize = Math.max(groupSize, 1);
+        this.maxDelayNanos = Math.max(maxDelayMillis, 0) * 1000000;
+        this.crc = new CRC32();
+        if (maxDelayNanos > 0) {
+            flusher = new Thread(this::flushLoop, "mutation-log-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * Gets the number of times the log was forced to disk.
+     * @return Number of forces
+     */
+    public synchronized long getForces() {
+        return forces;
+    }
+
+    /**
+     * Gets the number of records written but not yet forced to disk.
+     * @return Number of unforced records
+     */
+    public synchronized long getUnforced() {
+        return appended - forced;
+    }
+
+    /**
+     * Appends a record that adds a user.
+     * @param name Name of the new user
+     * @throws IOException If the log cannot be written
+     */
+    public void logAddUser(String name) throws IOException {
+        append(ADD_USER, name, null);
+    }
+
+    /**
+     * Appends a record that makes one user follow another.
+     * @param follower Name of the user who follows
+     * @param followee Name of the user being followed
+     * @throws IOException If the log cannot be written
+     */
+    public void logFollow(String follower, String followee) throws IOException {
+        append(FOLLOW, follower, followee);
+    }
+
+    /**
+     * Appends a record that makes one user stop following another.
+     * @param follower Name of the user who unfollows
+     * @param followee Name of the user no longer followed
+     * @throws IOException If the log cannot be written
+     */
+    public void logUnfollow(String follower, String followee) throws IOException {
+        append(UNFOLLOW, follower, followee);
+    }
+
+    /**
+     * Appends a record that removes a user together with all of its follow edges.
+     * @param name Name of the removed user
+     * @throws IOException If the log cannot be written
+     */
+    public void logRemoveUser(String name) throws IOException {
+        append(REMOVE_USER, name, null);
+    }
+
+    /**
+     * Forces every record written so far to disk. The force itself runs without holding the
+     * log's lock, so records can keep being appended meanwhile; they join the next group.
+     * @throws IOException If the log cannot be forced
+     */
+    public void sync() throws IOException {
+        long target;
+        synchronized (this) {
+            target = appended;
+            if (target == forced) {
+                return;
+            }
+        }
+        channel.force(false);
+        synchronized (this) {
+            if (target > forced) {
+                forced = target;
+                oldestUnforced = System.nanoTime();
+                forces++;
+            }
+        }
+    }
+
+    /**
+     * Discards every record, for example after the network was saved to a snapshot.
+     * @throws IOException If the log cannot be truncated
+     */
+    public synchronized void truncate() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        forces++;
+        forced = appended;
+    }
+
+    /**
+     * Stops the flusher, forces the remaining records to disk and closes the log.
+     * @throws IOException If the log cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Applies the records of a log file to a network, in order.
+     * Replay stops at the first record that is incomplete or fails its checksum.
+     * @param path Log file
+     * @param network Network to apply the records to, or null to only validate them
+     * @return Length in bytes of the valid prefix of the log
+     * @throws IOException If the file cannot be read
+     */
+    public static long replay(Path path, Network network) throws IOException {
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Log too large to replay: " + path);
+            }
+            MappedByteBuffer log = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 check = new CRC32();
+            byte[] payload = new byte[256];
+            long valid = 0;
+            while (log.remaining() >= 8) {
+                int length = log.getInt();
+                int expected = log.getInt();
+                if (length < 1 || length > log.remaining()) {
+                    break;
+                }
+                if (length > payload.length) {
+                    payload = new byte[Math.max(length, payload.length * 2)];
+                }
+                log.get(payload, 0, length);
+                check.reset();
+                check.update(payload, 0, length);
+                if ((int) check.getValue() != expected) {
+                    break;
+                }
+                if (network != null && !apply(network, ByteBuffer.wrap(payload, 0, length))) {
+                    break;
+                }
+                valid = log.position();
+            }
+            return valid;
+        }
+    }
+
+    /** Applies one record payload to a network; returns false if the payload is malformed. */
+    private static boolean apply(Network network, ByteBuffer payload) {
+        byte op = payload.get();
+        String first = readName(payload);
+        boolean single = (op == ADD_USER || op == REMOVE_USER);
+        String second = single ? null : readName(payload);
+        if (first == null || (!single && second == null)) {
+            return false;
+        }
+        switch (op) {
+            case ADD_USER:
+                network.addUser(first);
+                return true;
+            case FOLLOW:
+                network.addFollowee(first, second);
+                return true;
+            case UNFOLLOW:
+                network.unfollow(first, second);
+                return true;
+            case REMOVE_USER:
+                network.removeUser(first);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** Reads a length-prefixed UTF-8 name, or returns null if the payload is too short. */
+    private static String readName(ByteBuffer payload) {
+        if (payload.remaining() < 4) {
+            return null;
+        }
+        int length = payload.getInt();
+        if (length < 0 || length > payload.remaining()) {
+            return null;
+        }
+        String name = new String(payload.array(), payload.position(), length, StandardCharsets.UTF_8);
+        payload.position(payload.position() + length);
+        return name;
+    }
+
+    /** Encodes one record, writes it to the channel and forces the log when a group is complete. */
+    private void append(byte op, String first, String second) throws IOException {
+        byte[] a = first.getBytes(StandardCharsets.UTF_8);
+        byte[] b = (second == null) ? null : second.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 4 + a.length + ((b == null) ? 0 : 4 + b.length);
+        boolean groupComplete;
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Mutation log is closed");
+            }
+            if (failure != null) {
+                throw new IOException("Mutation log could not be forced to disk", failure);
+            }
+            if (buffer.capacity() < 8 + length) {
+                buffer = ByteBuffer.allocate(Math.max(8 + length, buffer.capacity() * 2));
+            }
+            buffer.clear();
+            buffer.putInt(length).putInt(0).put(op).putInt(a.length).put(a);
+            if (b != null) {
+                buffer.putInt(b.length).put(b);
+            }
+            crc.reset();
+            crc.update(buffer.array(), 8, length);
+            buffer.putInt(4, (int) crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (appended++ == forced) {
+                oldestUnforced = System.nanoTime();
+                notifyAll(); // wakes the flusher, which waits without a timeout while nothing is unforced
+            }
+            groupComplete = appended - forced >= groupSize;
+        }
+        if (groupComplete) {
+            sync();
+        }
+    }
+
+    /** Body of the flusher thread: forces the log whenever its oldest unforced record reaches the maximum delay. */
+    private void flushLoop() {
+        while (true) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                long wait = oldestUnforced + maxDelayNanos - System.nanoTime();
+                if (appended == forced || wait > 0) {
+                    try {
+                        if (appended == forced) {
+                            wait();
+                        } else {
+                            wait(wait / 1000000, (int) (wait % 1000000));
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+            try {
+                sync();
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                }
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/** An open-addressing hash table that maps user names to int slots, ignoring case.
+ *  Every name is stored in a precomputed case-folded form together with its hash,
+ *  so lookups fold the query one character at a time and never allocate.
+ *  A table can also act as a name dictionary, interning names under dense ids. */
+public class NameTable {
+    // Fields
+    private String[] keys; // case-folded names, null for an empty bucket
+    private int[] hashes;  // hash of each folded key
+    private int[] values;  // slot stored for each key
+    private int size;      // number of keys currently in the table
+    private String[] names; // interned names by id, allocated on the first call to intern
+
+    /**
+     * Creates a table sized for the given number of names.
+     * @param expectedSize Number of names the table should hold without resizing
+     */
+    public NameTable(int expectedSize) {
+        int capacity = 8;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        values = new int[capacity];
+        size = 0;
+    }
+
+    /**
+     * Gets the number of names in the table.
+     * @return Number of names currently stored
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the slot stored for the given name.
+     * @param name Name to look up (case-insensitive)
+     * @return Slot of the name, or -1 if the name is not in the table
+     */
+    public int find(CharSequence name) {
+        if (name == null) {
+            return -1;
+        }
+        int i = bucketOf(name, hash(name));
+        return (keys[i] == null) ? -1 : values[i];
+    }
+
+    /**
+     * Adds a name to the table.
+     * @param name Name to add
+     * @param value Slot to store for the name
+     * @return true if the name was added, false if it is already in the table
+     */
+    public boolean put(String name, int value) {
+        int hash = hash(name);
+        int i = bucketOf(name, hash);
+        if (keys[i] != null) {
+            return false;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+            i = bucketOf(name, hash);
+        }
+        keys[i] = fold(name);
+        hashes[i] = hash;
+        values[i] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes a name from the table. Later entries of its probe run are shifted back,
+     * so no tombstones are left behind. Not for tables used as a dictionary by intern.
+     * @param name Name to remove (case-insensitive)
+     * @return Slot that was stored for the name, or -1 if the name is not in the table
+     */
+    public int remove(CharSequence name) {
+        if (name == null) {
+            return -1;
+        }
+        int i = bucketOf(name, hash(name));
+        if (keys[i] == null) {
+            return -1;
+        }
+        int value = values[i];
+        int mask = keys.length - 1;
+        int hole = i;
+        for (int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+            // An entry may fill the hole only if the hole lies between its home bucket and j
+            int home = hashes[j] & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                hashes[hole] = hashes[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = null;
+        size--;
+        return value;
+    }
+
+    /**
+     * Gets the id of a name, giving the name the next dense id if it is new.
+     * Ids count up from 0 in order of first appearance, and the spelling used the
+     * first time becomes the canonical name returned by nameOf.
+     * @param name Name to intern
+     * @return Id of the name
+     */
+    public int intern(String name) {
+        int i = bucketOf(name, hash(name));
+        if (keys[i] != null) {
+            return values[i];
+        }
+        int id = size;
+        if (names == null) {
+            names = new String[keys.length / 2];
+        } else if (id == names.length) {
+            names = java.util.Arrays.copyOf(names, names.length * 2);
+        }
+        names[id] = name;
+        put(name, id);
+        return id;
+    }
+
+    /**
+     * Gets the name interned under the given id.
+     * @param id Id returned by intern
+     * @return Name as it was first interned
+     */
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    /**
+     * Folds a single character so that names differing only in case compare equal.
+     * @param c Character to fold
+     * @return Case-folded character
+     */
+    static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Computes the case-folded form of a name.
+     * @param name Name to fold
+     * @return Folded name; the name itself if it is already folded
+     */
+    static String fold(String name) {
+        int i = 0;
+        while (i < name.length() && fold(name.charAt(i)) == name.charAt(i)) {
+            i++;
+        }
+        if (i == name.length()) {
+            return name;
+        }
+        char[] chars = name.toCharArray();
+        for (; i < chars.length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Hashes the case-folded form of a name without building it.
+     * @param name Name to hash
+     * @return Hash of the folded name
+     */
+    static int hash(CharSequence name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            h = 31 * h + fold(name.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Compares a folded key with a name that may not be folded yet.
+     * @param key Folded key stored in the table
+     * @param name Name to compare
+     * @return true if the name folds to the key
+     */
+    private static boolean foldedEquals(String key, CharSequence name) {
+        if (key.length() != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != fold(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Walks the probe sequence of a name.
+     * @param name Name to look for
+     * @param hash Hash of the name
+     * @return Bucket holding the name, or the empty bucket where it would be placed
+     */
+    private int bucketOf(CharSequence name, int hash) {
+        int mask = keys.length - 1;
+        int i = hash & mask;
+        while (keys[i] != null && (hashes[i] != hash || !foldedEquals(keys[i], name))) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /** Places a key in the first empty bucket of its probe sequence. */
+    private void insert(String key, int hash, int value) {
+        int mask = keys.length - 1;
+        int i = hash & mask;
+        while (keys[i] != null) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        hashes[i] = hash;
+        values[i] = value;
+    }
+
+    /** Rehashes all keys into a table of the given capacity. */
+    private void resize(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldValues = values;
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                insert(oldKeys[i], oldHashes[i], oldValues[i]);
+            }
+        }
+    }
+}
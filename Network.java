@@ -2,16 +2,63 @@
  *  Each user is an instance of the User class. */
 public class Network {
     // Fields
-    private User[] users;  // the users in this network (an array of User objects)
+    private static final int INITIAL_CAPACITY = 16;
+    private User[] users;  // the users in this network, indexed by slot (null for a vacant slot)
     private int userCount; // actual number of users in this network
+    private int slotCount; // number of slots ever used; users live in users[0..slotCount-1]
+    private int[] freeSlots; // stack of vacated slots below slotCount, reused before new ones
+    private int freeCount;   // number of slots on the freeSlots stack
+    private int maxUserCount; // maximum number of users the network can hold
+    private NameTable index; // maps each user's name (case-insensitive) to its slot in users
+    private int[][] followers;    // followers[i] lists the slots of the users who follow users[i]
+    private int[] followerCount;  // followerCount[i] is the number of valid entries in followers[i]
+    private IdSet[] friends;      // friends[i] holds the slots that users[i] follows and is followed by, null if none yet
+    private PopularityHeap popularity; // all users ranked by follower count
+    private int[] mutualCounts; // scratch: mutualCounts[i] is the number of followees shared with users[i]
+    private int[] candidates;   // scratch: slots whose mutualCounts entry is non-zero
+    private double[] scores;    // scratch: scores[i] is the recommendation score of users[i] as a candidate
+    private int[] followeeCount; // followeeCount[i] is the number of users that users[i] follows
+    private MutationLog log;    // receives every mutation once attached, null if none
+    private VersionedArray names;     // name of each slot, shared with snapshots
+    private VersionedArray followees; // followee set of each slot, shared with snapshots
+    private int[] followeesVersion;   // version in which each followee set was created; older sets may be in a snapshot
+    private int version;              // number of snapshots taken
+    private int modCount;             // number of changes so far, to tell when cached analytics are stale
+    private CompactGraph graph;       // cached compact copy of the follow graph, null until needed
+    private int graphModCount;        // modCount when graph was built
+    private TriangleCounter triangles; // cached triangle counts of graph, null until needed
+    private PageRank pageRank;        // cached ranks of graph, null until needed
+    private PathFinder paths;         // reusable path search, null until needed
+
+    /**
+     * Creates a network whose user store grows without a fixed limit.
+     */
+    public Network() {
+        this(Integer.MAX_VALUE);
+    }
 
     /**
      * Creates a network with a given maximum number of users.
+     * The user store starts small and grows geometrically up to that limit.
      * @param maxUserCount Maximum number of users the network can hold
      */
     public Network(int maxUserCount) {
-        this.users = new User[maxUserCount];
+        int capacity = Math.min(maxUserCount, INITIAL_CAPACITY);
+        this.users = new User[capacity];
         this.userCount = 0;
+        this.slotCount = 0;
+        this.freeSlots = new int[INITIAL_CAPACITY];
+        this.freeCount = 0;
+        this.maxUserCount = maxUserCount;
+        this.index = new NameTable(capacity);
+        this.followers = new int[capacity][];
+        this.followerCount = new int[capacity];
+        this.followeeCount = new int[capacity];
+        this.friends = new IdSet[capacity];
+        this.popularity = new PopularityHeap(capacity);
+        this.names = new VersionedArray();
+        this.followees = new VersionedArray();
+        this.followeesVersion = new int[capacity];
     }
 
     /**
@@ -21,10 +68,9 @@ public class Network {
      */
     public Network(int maxUserCount, boolean gettingStarted) {
         this(maxUserCount);
-        users[0] = new User("Foo");
-        users[1] = new User("Bar");
-        users[2] = new User("Baz");
-        userCount = 3;
+        addUser("Foo");
+        addUser("Bar");
+        addUser("Baz");
     }
 
     /**
@@ -35,22 +81,66 @@ public class Network {
         return this.userCount;
     }
 
+    /**
+     * Gets the maximum number of users the network can hold.
+     * @return Maximum number of users
+     */
+    public int getMaxUserCount() {
+        return this.maxUserCount;
+    }
+
     /**
      * Finds and returns the user with the given name.
      * @param name Name of user to find (case-insensitive)
      * @return User object if found, null if not found
      */
     public User getUser(String name) {
-        if (name == null) {
-            return null;
-        }
-        name = name.toLowerCase();
-        for(int i = 0; i < userCount; i++) {
-            if (name.equals(users[i].getName().toLowerCase())) {
-                return users[i];
-            }
-        }
-        return null;
+        int i = index.find(name);
+        return (i == -1) ? null : users[i];
+    }
+
+    /**
+     * Finds the slot of the user with the given name.
+     * @param name Name of user to find (case-insensitive)
+     * @return Slot of the user, -1 if not found
+     */
+    int slotOf(String name) {
+        return index.find(name);
+    }
+
+    /**
+     * Gets the number of slots in use; every user has a slot below this limit, and some slots below it may be vacant.
+     * @return One more than the highest slot ever used
+     */
+    int slotLimit() {
+        return slotCount;
+    }
+
+    /**
+     * Gets the user in the given slot.
+     * @param slot Slot (user id) to read
+     * @return User in that slot, null if the slot is vacant or out of range
+     */
+    User getUserAt(int slot) {
+        return (slot >= 0 && slot < slotCount) ? users[slot] : null;
+    }
+
+    /**
+     * Gets the follower list of a slot, for searches that walk follows backward.
+     * @param slot Slot of a user
+     * @return Slots of its followers in entries 0 to followerCountOf(slot) - 1; must not be modified
+     */
+    int[] followersOf(int slot) {
+        return followers[slot];
+    }
+
+    /**
+     * Gets the number of followers of a slot.
+     * @param slot Slot of a user
+     * @return Number of valid entries in followersOf(slot)
+     */
+    int followerCountOf(int slot) {
+        return followerCount[slot];
     }
 
     /**
@@ -59,17 +149,128 @@ public class Network {
      * @return true if user added successfully, false if network is full or user exists
      */
     public boolean addUser(String name) {
-        if (getUser(name) != null) {
+        if (name == null || userCount >= maxUserCount || index.find(name) != -1) {
             return false;
         }
-        for(int i = 0; i < users.length; i++) {
-            if (users[i] == null) {
-                users[i] = new User(name);
-                userCount++;
-                return true;
+        if (log != null) {
+            try {
+                log.logAddUser(name);
+            } catch (java.io.IOException e) {
+                throw new java.io.UncheckedIOException(e);
             }
         }
-        return false;
+        int slot = allocateSlot();
+        users[slot] = new User(name, this, slot);
+        names.set(slot, name);
+        followees.set(slot, users[slot].followees());
+        followeesVersion[slot] = version;
+        index.put(name, slot);
+        popularity.add(slot);
+        userCount++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Builds a network from a compact adjacency in one pass, for loaders that already hold the whole graph.
+     * Users get slots 0 to n-1 in the order of names. The followees of user u are
+     * edges[offsets[u]] to edges[offsets[u + 1] - 1], as indexes into names, in the order u followed them.
+     * @param names Names of the users
+     * @param n Number of users
+     * @param maxUserCount Maximum number of users the network can hold
+     * @param offsets Start of each user's followees in edges, n + 1 entries
+     * @param edges Followee indexes of all users
+     * @return The network
+     * @throws IllegalArgumentException If a name repeats or the adjacency is malformed
+     */
+    static Network fromAdjacency(String[] names, int n, int maxUserCount, int[] offsets, int[] edges) {
+        Network network = new Network(maxUserCount);
+        network.ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            if (!network.addUser(names[i])) {
+                throw new IllegalArgumentException("Cannot add user " + names[i] + ": duplicate name or network full");
+            }
+        }
+        int[] counts = network.followerCount;
+        for (int u = 0; u < n; u++) {
+            int from = offsets[u];
+            int to = offsets[u + 1];
+            if (from > to || to > edges.length) {
+                throw new IllegalArgumentException("Bad edge offsets for user " + u);
+            }
+            for (int e = from; e < to; e++) {
+                int v = edges[e];
+                if (v < 0 || v >= n || v == u) {
+                    throw new IllegalArgumentException("Bad followee " + v + " for user " + u);
+                }
+                counts[v]++;
+            }
+            IdSet set = IdSet.ofOrdered(edges, from, to); // rejects a repeated followee
+            network.users[u].setFollowees(set);
+            network.followeeCount[u] = to - from;
+            network.followees.set(u, set);
+        }
+        for (int v = 0; v < n; v++) {
+            network.followers[v] = new int[Math.max(counts[v], 1)];
+            network.popularity.setCount(v, counts[v]);
+            counts[v] = 0;
+        }
+        for (int u = 0; u < n; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = edges[e];
+                network.followers[v][counts[v]++] = u;
+                if (v > u && network.users[v].follows(u)) {
+                    network.addFriends(u, v);
+                }
+            }
+        }
+        return network;
+    }
+
+    /**
+     * Makes room for the given number of slots without further growth.
+     * @param capacity Number of slots needed
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > users.length) {
+            users = java.util.Arrays.copyOf(users, capacity);
+            followers = java.util.Arrays.copyOf(followers, capacity);
+            followerCount = java.util.Arrays.copyOf(followerCount, capacity);
+            followeeCount = java.util.Arrays.copyOf(followeeCount, capacity);
+            friends = java.util.Arrays.copyOf(friends, capacity);
+            followeesVersion = java.util.Arrays.copyOf(followeesVersion, capacity);
+        }
+    }
+
+    /**
+     * Takes a vacated slot if one exists, otherwise the next unused slot, growing the store as needed.
+     * @return Slot for a new user
+     */
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == users.length) {
+            long grown = Math.max(2L * users.length, INITIAL_CAPACITY);
+            ensureCapacity((int) Math.min(grown, maxUserCount));
+        }
+        return slotCount++;
+    }
+
+    /**
+     * Returns a slot to the free list so that a later addUser can reuse it.
+     * @param slot Slot of a user who left the network
+     */
+    private void releaseSlot(int slot) {
+        users[slot] = null;
+        followers[slot] = null;
+        followerCount[slot] = 0;
+        followeeCount[slot] = 0;
+        friends[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = java.util.Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
     }
 
     /**
@@ -79,76 +280,653 @@ public class Network {
      * @return true if follow relationship created successfully, false otherwise
      */
     public boolean addFollowee(String name1, String name2) {
-        if (getUser(name1) == null || getUser(name2) == null || getUser(name1).follows(name2) || name1.equals(name2)
-        || name1 == null || name2 == null) {
+        User user = getUser(name1);
+        User followee = getUser(name2);
+        if (user == null || followee == null || user == followee) {
             return false;
         }
+        return user.addFollowee(followee.getId());
+    }
+
+    /**
+     * Makes one user stop following another.
+     * @param name1 Name of user who unfollows
+     * @param name2 Name of user to unfollow
+     * @return true if the follow relationship was removed, false if it did not exist
+     */
+    public boolean unfollow(String name1, String name2) {
         User user = getUser(name1);
-        user.addFollowee(name2);
+        int followee = index.find(name2);
+        return user != null && followee != -1 && user.removeFollowee(followee);
+    }
+
+    /**
+     * Removes a user and every follow edge to or from it, in time proportional to the user's
+     * followers and followees: the follower index says exactly whose followee sets mention it.
+     * The slot is reused by a later addUser, and the user who takes it over is listed, and ranks
+     * in ties, at that slot's place. The removed User object is detached from the network and
+     * keeps no followees.
+     * @param name Name of the user to remove (case-insensitive)
+     * @return true if the user was removed, false if not found
+     */
+    public boolean removeUser(String name) {
+        int slot = index.find(name);
+        if (slot == -1) {
+            return false;
+        }
+        User user = users[slot];
+        if (log != null) {
+            try {
+                log.logRemoveUser(user.getName());
+            } catch (java.io.IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        }
+        // One pass over the follower index: drop the slot from each follower's followee set
+        // directly, without searching followers[slot] again for each of them
+        int[] list = followers[slot];
+        for (int i = 0; i < followerCount[slot]; i++) {
+            int follower = list[i];
+            beforeFolloweeChange(follower);
+            users[follower].followees().remove(slot);
+            followeeCount[follower]--;
+            if (friends[follower] != null) {
+                friends[follower].remove(slot);
+            }
+        }
+        IdSet set = user.followees();
+        for (int p = 0; p < set.positions(); p++) {
+            int followee = set.idAt(p);
+            if (followee >= 0) {
+                unfollowed(slot, followee);
+            }
+        }
+        popularity.remove(slot);
+        index.remove(name);
+        names.set(slot, null);
+        followees.set(slot, null);
+        user.detach();
+        userCount--;
+        modCount++;
+        releaseSlot(slot);
         return true;
     }
 
+    /**
+     * Prepares a new follow edge: appends it to the attached log, then gives the follower a
+     * private followee set if a snapshot may hold the current one. Called by User just before
+     * a member of this network follows another, so the log is written ahead of the change.
+     * @param follower Slot of the user about to follow
+     * @param followee Slot of the user about to be followed
+     */
+    void beforeFollow(int follower, int followee) {
+        if (log != null) {
+            try {
+                log.logFollow(users[follower].getName(), users[followee].getName());
+            } catch (java.io.IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        }
+        beforeFolloweeChange(follower);
+    }
+
+    /**
+     * Prepares the removal of a follow edge, as beforeFollow does for a new one.
+     * @param follower Slot of the user about to unfollow
+     * @param followee Slot of the user about to be unfollowed
+     */
+    void beforeUnfollow(int follower, int followee) {
+        if (log != null) {
+            try {
+                log.logUnfollow(users[follower].getName(), users[followee].getName());
+            } catch (java.io.IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        }
+        beforeFolloweeChange(follower);
+    }
+
+    /**
+     * Gives a user a private copy of its followee set if a snapshot may still hold the current one.
+     * @param slot Slot of the user about to change
+     */
+    private void beforeFolloweeChange(int slot) {
+        if (followeesVersion[slot] != version) {
+            IdSet copy = users[slot].followees().copy();
+            users[slot].setFollowees(copy);
+            followees.set(slot, copy);
+            followeesVersion[slot] = version;
+        }
+    }
+
+    /**
+     * Records a new follow edge in the follower index. Called by User when a member of this network follows another.
+     * @param follower Slot of the user who follows
+     * @param followee Slot of the user being followed
+     */
+    void followed(int follower, int followee) {
+        int[] list = followers[followee];
+        int count = followerCount[followee];
+        if (list == null) {
+            list = new int[4];
+        } else if (count == list.length) {
+            list = java.util.Arrays.copyOf(list, count * 2);
+        }
+        list[count] = follower;
+        followers[followee] = list;
+        followerCount[followee] = count + 1;
+        followeeCount[follower]++;
+        popularity.increment(followee);
+        modCount++;
+        if (users[followee].follows(follower)) {
+            addFriends(follower, followee);
+        }
+    }
+
+    /**
+     * Removes a follow edge from the follower index. Called by User when a member of this network unfollows another.
+     * @param follower Slot of the user who stopped following
+     * @param followee Slot of the user no longer followed
+     */
+    void unfollowed(int follower, int followee) {
+        int[] list = followers[followee];
+        int count = followerCount[followee];
+        for (int i = 0; i < count; i++) {
+            if (list[i] == follower) {
+                list[i] = list[count - 1];
+                followerCount[followee] = count - 1;
+                followeeCount[follower]--;
+                popularity.decrement(followee);
+                modCount++;
+                if (friends[follower] != null && friends[follower].remove(followee)) {
+                    friends[followee].remove(follower);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Marks two users as friends in the friends index.
+     * @param a Slot of one user
+     * @param b Slot of the other user
+     */
+    private void addFriends(int a, int b) {
+        if (friends[a] == null) {
+            friends[a] = new IdSet();
+        }
+        if (friends[b] == null) {
+            friends[b] = new IdSet();
+        }
+        friends[a].add(b);
+        friends[b].add(a);
+    }
+
+    /**
+     * Checks if two members follow each other, with one lookup in the friends index.
+     * @param a Slot of one user
+     * @param b Slot of the other user
+     * @return true if the users follow each other
+     */
+    boolean areFriends(int a, int b) {
+        return friends[a] != null && friends[a].contains(b);
+    }
+
+    /**
+     * Lists the users who follow the given user and are followed back, in time proportional to their number.
+     * @param name Name of the user (case-insensitive)
+     * @return Names of the user's friends in network order, null if the user does not exist
+     */
+    public String[] friendsOf(String name) {
+        int slot = index.find(name);
+        if (slot == -1) {
+            return null;
+        }
+        int[] ids = (friends[slot] == null) ? new int[0] : friends[slot].toSortedArray();
+        String[] ans = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            ans[i] = users[ids[i]].getName();
+        }
+        return ans;
+    }
+
     /**
      * Recommends a user to follow based on mutual followees.
      * @param name Name of user to get recommendation for
      * @return Name of recommended user to follow, null if no recommendation available
      */
     public String recommendWhoToFollow(String name) {
+        String[] best = recommendWhoToFollow(name, 1);
+        return (best == null || best.length == 0) ? null : best[0];
+    }
+
+    /**
+     * Recommends the k best users to follow based on mutual followees.
+     * Candidates are ranked by the number of followees they share with the user, ties going
+     * to the user added to the network first. They are selected with a bounded min-heap of
+     * size k, so the candidate set is never sorted. If fewer than k users share a followee,
+     * the list is filled with other users the user does not follow yet, in network order.
+     * @param name Name of user to get recommendations for
+     * @param k Maximum number of recommendations
+     * @return Names of up to k recommended users, best first; null if the user does not exist
+     */
+    public String[] recommendWhoToFollow(String name, int k) {
+        return recommendWhoToFollow(name, k, RecommendationScore.MUTUAL);
+    }
+
+    /**
+     * Recommends the k best users to follow, scoring candidates in the given way (see RecommendationScore).
+     * Only users who share at least one followee get a score; ties and the users who share none are
+     * ranked as in recommendWhoToFollow(name, k). The scores are accumulated during the same walk of
+     * the follower index that finds the candidates, and read the follower and followee counts that the
+     * network keeps up to date, so no score needs a scan of its own.
+     * @param name Name of user to get recommendations for
+     * @param k Maximum number of recommendations
+     * @param score How to score candidates
+     * @return Names of up to k recommended users, best first; null if the user does not exist
+     */
+    public String[] recommendWhoToFollow(String name, int k, RecommendationScore score) {
         User user = getUser(name);
         if (user == null) {
             return null;
         }
-        int index = -1;
-        int countMutuals = -1;
-        for(int i = 0; i < userCount; i++) {
-            User currUser = users[i];
-            if (user == currUser) {
-                continue;
+        int target = user.getId();
+        int candidateCount = collectCandidates(target, score);
+        TopK best = new TopK(Math.min(k, candidateCount), this::compareCandidates); // no more than the candidates, whatever k
+        for (int n = 0; n < candidateCount && k > 0; n++) {
+            int slot = candidates[n];
+            if (!user.follows(slot)) {
+                best.offer(slot);
+            }
+        }
+        int size = best.size();
+        int found = size;
+        for (int i = 0; i < slotCount && found < k; i++) {
+            if (users[i] != null && i != target && mutualCounts[i] == 0 && !user.follows(i)) {
+                found++;
             }
-            if (user.follows(currUser.getName())) {
+        }
+        String[] ans = new String[found];
+        // Users who share no followee rank last, in network order
+        int extra = size;
+        for (int i = 0; i < slotCount && extra < found; i++) {
+            if (users[i] != null && i != target && mutualCounts[i] == 0 && !user.follows(i)) {
+                ans[extra++] = users[i].getName();
+            }
+        }
+        int[] ranked = best.drain();
+        for (int i = 0; i < size; i++) {
+            ans[i] = users[ranked[i]].getName();
+        }
+        clearCandidates(candidateCount);
+        return ans;
+    }
+
+    /**
+     * Compares two recommendation candidates, for TopK.
+     * @param a Slot of the first candidate
+     * @param b Slot of the second candidate
+     * @return Negative if a scores higher than b, or as high and was added first; positive if b ranks first
+     */
+    private int compareCandidates(int a, int b) {
+        return (scores[a] > scores[b]) ? -1 : (scores[a] < scores[b]) ? 1 : Integer.compare(a, b);
+    }
+
+    /**
+     * Finds every user who shares at least one followee with the given user, by walking
+     * from each of its followees to their followers. The number of shared followees of each
+     * candidate is accumulated in mutualCounts and its score in scores; call clearCandidates
+     * when done with them.
+     * @param target Slot of the user to find candidates for
+     * @param score How to score candidates
+     * @return Number of candidates, stored in candidates[0..count-1]
+     */
+    private int collectCandidates(int target, RecommendationScore score) {
+        if (mutualCounts == null || mutualCounts.length < users.length) {
+            mutualCounts = new int[users.length];
+            candidates = new int[users.length];
+            scores = new double[users.length];
+        }
+        int count = 0;
+        IdSet followees = users[target].followees();
+        for (int p = 0; p < followees.positions(); p++) {
+            int followee = followees.idAt(p);
+            if (followee < 0) {
                 continue;
             }
-            if (user.countMutual(currUser) > countMutuals) {
-                countMutuals = user.countMutual(currUser);
-                index = i;
+            int[] list = followers[followee];
+            // A followee with followers besides the target has at least two, so the log is positive
+            double weight = (score == RecommendationScore.ADAMIC_ADAR) ? 1 / Math.log(followerCount[followee]) : 1;
+            for (int m = 0; m < followerCount[followee]; m++) {
+                int slot = list[m];
+                if (slot == target) {
+                    continue;
+                }
+                if (mutualCounts[slot] == 0) {
+                    candidates[count++] = slot;
+                }
+                mutualCounts[slot]++;
+                scores[slot] += weight;
             }
         }
-        return users[index].getName();
+        if (score == RecommendationScore.JACCARD) {
+            for (int n = 0; n < count; n++) {
+                int slot = candidates[n];
+                int shared = mutualCounts[slot];
+                scores[slot] = (double) shared / (followeeCount[target] + followeeCount[slot] - shared);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Resets the scratch counters filled by collectCandidates.
+     * @param count Number of candidates returned by collectCandidates
+     */
+    private void clearCandidates(int count) {
+        for (int n = 0; n < count; n++) {
+            mutualCounts[candidates[n]] = 0;
+            scores[candidates[n]] = 0;
+        }
     }
 
     /**
      * Finds the most followed user in the network.
+     * Ties go to the user who was added to the network first.
      * @return Name of user with most followers, null if network is empty
      */
     public String mostPopularUser() {
-        if (userCount == 0) {
+        int slot = popularity.top();
+        return (slot == -1) ? null : users[slot].getName();
+    }
+
+    /**
+     * Finds the k most followed users in the network, in O(k log k) time.
+     * Ties go to the user who was added to the network first.
+     * @param k Number of users to return
+     * @return Names of up to k users, most followed first
+     */
+    public String[] topPopularUsers(int k) {
+        int[] slots = popularity.top(k);
+        String[] names = new String[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            names[i] = users[slots[i]].getName();
+        }
+        return names;
+    }
+
+    /**
+     * Finds a shortest chain of follows leading from one user to another, with a bidirectional
+     * breadth-first search over the followee sets and the follower index (see PathFinder).
+     * @param name1 Name of the first user
+     * @param name2 Name of the last user
+     * @return Names along the path, name1's user first and name2's last; null if a user does not exist or there is no path
+     */
+    public String[] shortestPath(String name1, String name2) {
+        int[] path = findPath(name1, name2);
+        if (path == null) {
             return null;
         }
-        int max = followeeCount(users[0].getName());
-        int index = 0;
-        for (int i = 1; i < userCount; i++) {
-            int curr = followeeCount(users[i].getName());
-            if (curr > max) {
-                max = curr;
-                index = i;
-            }
+        String[] names = new String[path.length];
+        for (int i = 0; i < path.length; i++) {
+            names[i] = users[path[i]].getName();
         }
-        return users[index].getName();
+        return names;
     }
 
     /**
-     * Counts how many users follow the given user.
-     * @param name Name of user to count followers for
-     * @return Number of followers for the given user
+     * Counts the follows on a shortest chain from one user to another.
+     * @param name1 Name of the first user
+     * @param name2 Name of the last user
+     * @return Number of follows, 0 for the same user, -1 if a user does not exist or there is no path
      */
-    private int followeeCount(String name) {
-        int counter = 0;
-        for(int i = 0; i < userCount; i++) {
-            if (users[i].follows(name)) {
-                counter++;
-            }
+    public int degreesOfSeparation(String name1, String name2) {
+        int[] path = findPath(name1, name2);
+        return (path == null) ? -1 : path.length - 1;
+    }
+
+    /**
+     * Runs the shared path finder between two users.
+     * @param name1 Name of the first user
+     * @param name2 Name of the last user
+     * @return Slots along a shortest path, null if a user does not exist or there is no path
+     */
+    private int[] findPath(String name1, String name2) {
+        int source = index.find(name1);
+        int target = index.find(name2);
+        if (source == -1 || target == -1) {
+            return null;
+        }
+        if (paths == null) {
+            paths = new PathFinder(this);
         }
-        return counter;
+        return paths.find(source, target);
+    }
+
+    /**
+     * Gets a compact copy of the follow graph for whole-graph analytics.
+     * The copy is cached and rebuilt only after the network has changed.
+     * @return Compact graph of the current network
+     */
+    CompactGraph compactGraph() {
+        if (graph == null || graphModCount != modCount) {
+            graph = new CompactGraph(this);
+            graphModCount = modCount;
+            triangles = null;
+            pageRank = null;
+        }
+        return graph;
+    }
+
+    /**
+     * Gets the triangle counts of the current follow graph, counting them if the network changed.
+     * @return Triangle counter that has run on compactGraph()
+     */
+    private TriangleCounter triangleCounter() {
+        CompactGraph current = compactGraph();
+        if (triangles == null) {
+            triangles = new TriangleCounter(current).count();
+        }
+        return triangles;
+    }
+
+    /**
+     * Counts the triangles of the network: sets of three users who are pairwise connected,
+     * where two users are connected if either follows the other. See TriangleCounter.
+     * @return Number of triangles
+     */
+    public long countTriangles() {
+        return triangleCounter().getTriangles();
+    }
+
+    /**
+     * Computes the clustering coefficient of a user: the fraction of pairs of its connections
+     * that are connected themselves, where two users are connected if either follows the other.
+     * @param name Name of the user (case-insensitive)
+     * @return Coefficient between 0 and 1, or -1 if the user does not exist
+     */
+    public double clusteringCoefficient(String name) {
+        int slot = index.find(name);
+        if (slot == -1) {
+            return -1;
+        }
+        TriangleCounter counter = triangleCounter();
+        return counter.clusteringOf(compactGraph().denseOf(slot));
+    }
+
+    /**
+     * Averages the clustering coefficient over all users of the network.
+     * @return Average coefficient, 0 for an empty network
+     */
+    public double averageClusteringCoefficient() {
+        return triangleCounter().averageClustering();
+    }
+
+    /**
+     * Finds the k most influential users by PageRank: a user ranks high when users who rank high follow it,
+     * so followers count for more than in mostPopularUser. The ranks are computed in parallel on a compact
+     * copy of the follow graph and cached until the network changes. Ties go to the user added first.
+     * @param k Number of users to return
+     * @return Names of up to k users, most influential first
+     */
+    public String[] mostInfluentialUsers(int k) {
+        CompactGraph current = compactGraph();
+        if (pageRank == null) {
+            pageRank = new PageRank(current).run();
+        }
+        int[] top = pageRank.top(k);
+        String[] names = new String[top.length];
+        for (int i = 0; i < top.length; i++) {
+            names[i] = current.nameOf(top[i]);
+        }
+        return names;
+    }
+
+    /**
+     * Recommends users to follow by personalized PageRank, estimated with random walks from the user
+     * (see PersonalizedPageRank). Walks reach beyond the followees of followees, so users several hops
+     * away can be recommended. The walks read the live followee sets, so no compact copy of the graph
+     * is built for the query. The walks are seeded from the user's slot, so an unchanged network
+     * gives the same answer every time.
+     * @param name Name of user to get recommendations for
+     * @param k Maximum number of recommendations
+     * @param walks Walk budget: the number of random walks to run, which bounds the cost of the query
+     * @return Names of up to k users the walks visited most, best first; null if the user does not exist
+     */
+    public String[] recommendByRandomWalks(String name, int k, int walks) {
+        int slot = index.find(name);
+        if (slot == -1) {
+            return null;
+        }
+        PersonalizedPageRank walker = new PersonalizedPageRank(this, walks,
+                PersonalizedPageRank.DEFAULT_MAX_LENGTH, PersonalizedPageRank.DEFAULT_RESET);
+        int[] best = walker.recommend(slot, k, slot * 0x9E3779B97F4A7C15L);
+        String[] names = new String[best.length];
+        for (int i = 0; i < best.length; i++) {
+            names[i] = users[best[i]].getName();
+        }
+        return names;
+    }
+
+    /**
+     * Recommends users to follow by personalized PageRank with the default walk budget.
+     * @param name Name of user to get recommendations for
+     * @param k Maximum number of recommendations
+     * @return Names of up to k recommended users, best first; null if the user does not exist
+     */
+    public String[] recommendByRandomWalks(String name, int k) {
+        return recommendByRandomWalks(name, k, PersonalizedPageRank.DEFAULT_WALKS);
+    }
+
+    /**
+     * Splits the network into weak components: groups of users connected by follows in either
+     * direction. Isolated clusters show up as small groups. See Components.
+     * @return One array of names per component, components and names in network order
+     */
+    public String[][] weakComponents() {
+        Components components = new Components(compactGraph());
+        return components.groups(components.weak());
+    }
+
+    /**
+     * Splits the network into strong components: groups in which every user can reach every
+     * other along follows, such as rings of users who follow each other. See Components.
+     * @return One array of names per component, components and names in network order
+     */
+    public String[][] strongComponents() {
+        Components components = new Components(compactGraph());
+        return components.groups(components.strong());
+    }
+
+    /**
+     * Takes a consistent, immutable view of the network in O(1) time.
+     * The view shares its chunks of names and followee sets with the network; the network copies
+     * a chunk or a followee set only when it first changes it after the snapshot. Scans of the
+     * snapshot therefore see one version of the network while writes continue.
+     * @return Snapshot of the current users and follows
+     */
+    public NetworkSnapshot snapshot() {
+        version++;
+        return new NetworkSnapshot(names.freeze(), followees.freeze(), slotCount, userCount);
+    }
+
+    /**
+     * Saves the network to a binary snapshot file (see NetworkFile for the format).
+     * @param path File to write, replaced if it exists
+     * @throws java.io.IOException If the file cannot be written
+     */
+    public void save(java.nio.file.Path path) throws java.io.IOException {
+        NetworkFile.save(this, path);
+    }
+
+    /**
+     * Loads a network from a binary snapshot file written by save.
+     * The file is memory-mapped and its edges are copied out in bulk, with no per-edge parsing.
+     * @param path File to read
+     * @return The loaded network
+     * @throws java.io.IOException If the file cannot be read or is not a valid snapshot
+     */
+    public static Network load(java.nio.file.Path path) throws java.io.IOException {
+        return NetworkFile.load(path);
+    }
+
+    /**
+     * Starts recording every later addUser, removeUser, follow and unfollow in a write-ahead log.
+     * Each record is written before its change is applied. The log forces records to disk in groups
+     * and within its maximum delay; call its sync method when a mutation must be durable at once.
+     * @param log Log to append to, or null to stop logging
+     */
+    public void attachLog(MutationLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Saves a snapshot and then empties the attached log, whose records the snapshot now covers.
+     * The snapshot is written to a temporary file first and moved into place, so a crash never leaves a partial snapshot.
+     * @param snapshot Snapshot file to write, replaced if it exists
+     * @throws java.io.IOException If the snapshot or the log cannot be written
+     */
+    public void checkpoint(java.nio.file.Path snapshot) throws java.io.IOException {
+        java.nio.file.Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        save(temporary);
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(temporary,
+                java.nio.file.StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        java.nio.file.Files.move(temporary, snapshot, java.nio.file.StandardCopyOption.REPLACE_EXISTING,
+                java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+        if (log != null) {
+            log.truncate();
+        }
+    }
+
+    /**
+     * Rebuilds a network after a restart: loads the latest snapshot, if any, and replays the log on top of it.
+     * A torn record at the end of the log, left by a crash, is ignored and cut off.
+     * The returned network has the log attached, so new mutations keep being recorded.
+     * @param snapshot Snapshot file written by save or checkpoint; may not exist yet
+     * @param logFile Log file; may not exist yet
+     * @return The recovered network
+     * @throws java.io.IOException If a file cannot be read or the snapshot is not valid
+     */
+    public static Network recover(java.nio.file.Path snapshot, java.nio.file.Path logFile) throws java.io.IOException {
+        Network network = java.nio.file.Files.exists(snapshot) ? load(snapshot) : new Network();
+        if (java.nio.file.Files.exists(logFile)) {
+            MutationLog.replay(logFile, network);
+        }
+        network.attachLog(new MutationLog(logFile));
+        return network;
+    }
+
+    /**
+     * Builds a network from a text file of "follower followee" lines, parsing the file in parallel.
+     * Use an EdgeListLoader directly to get a report of the load, including lines per second.
+     * @param path File to read
+     * @return Network holding every user and follow edge in the file
+     * @throws java.io.IOException If the file cannot be read
+     */
+    public static Network loadEdgeList(java.nio.file.Path path) throws java.io.IOException {
+        return new EdgeListLoader().load(path);
     }
 
     /**
@@ -156,10 +934,38 @@ public class Network {
      * @return String describing all users and their followees
      */
     public String toString() {
-        String ans = "Network:";
-        for (int i = 0; i < userCount; i++) {
-             ans += "\n"+ users[i].toString();
+        StringBuilder ans = new StringBuilder();
+        try {
+            writeTo(ans);
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
         }
-        return ans;
+        return ans.toString();
+    }
+
+    /**
+     * Writes the same text as toString, in time linear in the size of the network.
+     * @param out Where to write the text
+     * @throws java.io.IOException If out fails
+     */
+    public void writeTo(Appendable out) throws java.io.IOException {
+        out.append("Network:");
+        for (int i = 0; i < slotCount; i++) {
+            if (users[i] != null) {
+                out.append('\n');
+                users[i].writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * Writes the same text as toString to a channel, encoded as UTF-8 through one reusable buffer.
+     * @param channel Where to write the text
+     * @throws java.io.IOException If the channel fails
+     */
+    public void writeTo(java.nio.channels.WritableByteChannel channel) throws java.io.IOException {
+        ChannelWriter out = new ChannelWriter(channel);
+        writeTo(out);
+        out.flush();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,166 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** Reads and writes binary snapshots of a network.
+ *  A snapshot file is laid out as follows (all numbers big-endian):
+ *  <pre>
+ *  int  MAGIC, int VERSION
+ *  int  n (number of users), int maxUserCount, long m (number of follow edges)
+ *  n times: int length, then the user's name as length bytes of UTF-8
+ *  zero padding up to a multiple of 4 bytes
+ *  int[n + 1] offsets: the followees of user u are edges[offsets[u]] to edges[offsets[u + 1] - 1]
+ *  int[m] edges: followee indexes of each user, in the order the user followed them
+ *  </pre>
+ *  Version 1 files, whose followees are ascending instead, can still be loaded.
+ *  Users are numbered 0 to n-1 in slot order, so vacant slots are not stored.
+ *  Loading maps the file into memory and copies the offsets and edges out in bulk. */
+public class NetworkFile {
+    static final int MAGIC = 0x4E455457; // "NETW"
+    static final int VERSION = 2;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Writes a snapshot of a network.
+     * @param network Network to save
+     * @param path File to write, replaced if it exists
+     * @throws IOException If the file cannot be written
+     */
+    public static void save(Network network, Path path) throws IOException {
+        int slots = network.slotLimit();
+        int[] dense = new int[slots]; // dense[slot] is the index of the user in the file
+        int n = 0;
+        long m = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            User user = network.getUserAt(slot);
+            dense[slot] = (user == null) ? -1 : n++;
+            if (user != null) {
+                m += user.getfCount();
+            }
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(network.getMaxUserCount()).putLong(m);
+            long written = 24;
+            for (int slot = 0; slot < slots; slot++) {
+                User user = network.getUserAt(slot);
+                if (user == null) {
+                    continue;
+                }
+                byte[] name = user.getName().getBytes(StandardCharsets.UTF_8);
+                ensure(channel, buffer, 4);
+                buffer.putInt(name.length);
+                for (int i = 0; i < name.length; ) {
+                    ensure(channel, buffer, 1);
+                    int chunk = Math.min(buffer.remaining(), name.length - i);
+                    buffer.put(name, i, chunk);
+                    i += chunk;
+                }
+                written += 4 + name.length;
+            }
+            ensure(channel, buffer, 4);
+            while (written % 4 != 0) {
+                buffer.put((byte) 0);
+                written++;
+            }
+            int offset = 0;
+            ensure(channel, buffer, 4);
+            buffer.putInt(0);
+            for (int slot = 0; slot < slots; slot++) {
+                User user = network.getUserAt(slot);
+                if (user != null) {
+                    offset += user.getfCount();
+                    ensure(channel, buffer, 4);
+                    buffer.putInt(offset);
+                }
+            }
+            for (int slot = 0; slot < slots; slot++) {
+                User user = network.getUserAt(slot);
+                if (user == null) {
+                    continue;
+                }
+                int[] followees = user.followees().toOrderedArray();
+                for (int i = 0; i < followees.length; i++) {
+                    ensure(channel, buffer, 4);
+                    buffer.putInt(dense[followees[i]]);
+                }
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads a snapshot written by save.
+     * @param path File to read
+     * @return The network stored in the file
+     * @throws IOException If the file cannot be read or is not a valid snapshot
+     */
+    public static Network load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < 24 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a network snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + path);
+            }
+            int n = buffer.getInt();
+            int maxUserCount = buffer.getInt();
+            long m = buffer.getLong();
+            if (n < 0 || m < 0 || m > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt network snapshot: " + path);
+            }
+            String[] names = new String[n];
+            byte[] scratch = new byte[64];
+            for (int i = 0; i < n; i++) {
+                int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    throw new IOException("Corrupt network snapshot: " + path);
+                }
+                if (length > scratch.length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                buffer.get(scratch, 0, length);
+                names[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+            buffer.position((buffer.position() + 3) & ~3);
+            IntBuffer ints = buffer.asIntBuffer();
+            int[] offsets = new int[n + 1];
+            int[] edges = new int[(int) m];
+            ints.get(offsets);
+            ints.get(edges);
+            if (offsets[0] != 0 || offsets[n] != m) {
+                throw new IOException("Corrupt network snapshot: " + path);
+            }
+            return Network.fromAdjacency(names, n, maxUserCount, offsets, edges);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt network snapshot: " + path, e);
+        }
+    }
+
+    /** Writes the buffer out when fewer than the given number of bytes are free. */
+    private static void ensure(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/** An immutable view of a network at one moment, returned by Network.snapshot.
+ *  The view reads the frozen chunks of names and followee sets that it shares with the
+ *  network, so it stays consistent however the network changes afterwards, and any number
+ *  of threads may read it at once. Users keep the slots they had in the network.
+ *  The name index and the follower counts are built on first use. */
+public class NetworkSnapshot {
+    // Fields
+    private final Object[][] names;     // frozen chunks of names by slot, null for a vacant slot
+    private final Object[][] followees; // frozen chunks of followee sets (IdSet) by slot
+    private final int slotCount;        // slots in use when the snapshot was taken
+    private final int userCount;        // number of users when the snapshot was taken
+    private volatile NameTable index;   // maps names to slots, built on the first lookup
+    private volatile int[] followerCount; // number of followers of each slot, built on first use
+
+    /**
+     * Creates a snapshot from frozen chunks. Called by Network.snapshot.
+     * @param names Frozen names by slot
+     * @param followees Frozen followee sets by slot
+     * @param slotCount Number of slots in use
+     * @param userCount Number of users
+     */
+    NetworkSnapshot(Object[][] names, Object[][] followees, int slotCount, int userCount) {
+        this.names = names;
+        this.followees = followees;
+        this.slotCount = slotCount;
+        this.userCount = userCount;
+    }
+
+    /**
+     * Gets the number of users in the snapshot.
+     * @return Number of users
+     */
+    public int getUserCount() {
+        return userCount;
+    }
+
+    /**
+     * Finds the user with the given name.
+     * @param name Name of user to find (case-insensitive)
+     * @return Name of the user as it was added, null if not found
+     */
+    public String getUser(String name) {
+        int slot = slotOf(name);
+        return (slot == -1) ? null : nameAt(slot);
+    }
+
+    /**
+     * Gets the names of the users a user follows, in the order they were followed.
+     * @param name Name of the user
+     * @return Followee names, null if the user does not exist
+     */
+    public String[] getfFollows(String name) {
+        int slot = slotOf(name);
+        if (slot == -1) {
+            return null;
+        }
+        int[] ids = followeesAt(slot).toOrderedArray();
+        String[] ans = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            ans[i] = nameAt(ids[i]);
+        }
+        return ans;
+    }
+
+    /**
+     * Checks if one user follows another.
+     * @param name1 Name of the user who may follow
+     * @param name2 Name of the user who may be followed
+     * @return true if both users exist and the first follows the second
+     */
+    public boolean follows(String name1, String name2) {
+        int user = slotOf(name1);
+        int followee = slotOf(name2);
+        return user != -1 && followee != -1 && followeesAt(user).contains(followee);
+    }
+
+    /**
+     * Counts mutual followees between two users.
+     * @param name1 Name of the first user
+     * @param name2 Name of the second user
+     * @return Number of mutual followees, 0 if either user does not exist
+     */
+    public int countMutual(String name1, String name2) {
+        int a = slotOf(name1);
+        int b = slotOf(name2);
+        return (a == -1 || b == -1) ? 0 : IdSet.intersectionSize(followeesAt(a), followeesAt(b));
+    }
+
+    /**
+     * Finds the most followed user, with the same rules as Network.mostPopularUser.
+     * @return Name of user with most followers, null if the snapshot has no users
+     */
+    public String mostPopularUser() {
+        int[] counts = followerCounts();
+        int best = -1;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (nameAt(slot) != null && (best == -1 || counts[slot] > counts[best])) {
+                best = slot;
+            }
+        }
+        return (best == -1) ? null : nameAt(best);
+    }
+
+    /**
+     * Recommends a user to follow, with the same rules as Network.recommendWhoToFollow.
+     * @param name Name of user to get recommendation for
+     * @return Name of recommended user to follow, null if no recommendation available
+     */
+    public String recommendWhoToFollow(String name) {
+        String[] best = recommendWhoToFollow(name, 1);
+        return (best == null || best.length == 0) ? null : best[0];
+    }
+
+    /**
+     * Recommends the k best users to follow, with the same rules as Network.recommendWhoToFollow:
+     * most shared followees first, ties and users who share none in network order.
+     * Every other user is scored by intersecting followee sets; the best k are kept by a TopK.
+     * @param name Name of user to get recommendations for
+     * @param k Maximum number of recommendations
+     * @return Names of up to k recommended users, best first; null if the user does not exist
+     */
+    public String[] recommendWhoToFollow(String name, int k) {
+        int target = slotOf(name);
+        if (target == -1) {
+            return null;
+        }
+        IdSet mine = followeesAt(target);
+        int[] shared = new int[slotCount]; // followees each slot shares with the target
+        TopK best = new TopK(Math.min(k, slotCount), // no more than the slots, whatever k
+                (a, b) -> (shared[a] != shared[b]) ? Integer.compare(shared[b], shared[a]) : Integer.compare(a, b));
+        for (int slot = 0; slot < slotCount && k > 0; slot++) {
+            if (slot == target || nameAt(slot) == null || mine.contains(slot)) {
+                continue;
+            }
+            shared[slot] = IdSet.intersectionSize(mine, followeesAt(slot));
+            best.offer(slot);
+        }
+        int[] slots = best.drain();
+        String[] ans = new String[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            ans[i] = nameAt(slots[i]);
+        }
+        return ans;
+    }
+
+    /**
+     * Creates a string representation of the snapshot, in the format of Network.toString.
+     * @return String describing all users and their followees
+     */
+    public String toString() {
+        StringBuilder ans = new StringBuilder();
+        try {
+            writeTo(ans);
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+        return ans.toString();
+    }
+
+    /**
+     * Writes the same text as toString.
+     * @param out Where to write the text
+     * @throws java.io.IOException If out fails
+     */
+    public void writeTo(Appendable out) throws java.io.IOException {
+        out.append("Network:");
+        for (int slot = 0; slot < slotCount; slot++) {
+            String name = nameAt(slot);
+            if (name == null) {
+                continue;
+            }
+            out.append('\n').append(name).append(" -> ");
+            int[] ids = followeesAt(slot).toOrderedArray();
+            for (int i = 0; i < ids.length; i++) {
+                out.append(nameAt(ids[i])).append(' ');
+            }
+        }
+    }
+
+    /** Gets the name in a slot, null if the slot is vacant. */
+    private String nameAt(int slot) {
+        return (String) VersionedArray.get(names, slot);
+    }
+
+    /** Gets the followee set of an occupied slot. */
+    private IdSet followeesAt(int slot) {
+        return (IdSet) VersionedArray.get(followees, slot);
+    }
+
+    /**
+     * Finds the slot of a user, building the name index on the first call.
+     * @param name Name of the user (case-insensitive)
+     * @return Slot of the user, -1 if not found
+     */
+    private int slotOf(String name) {
+        NameTable table = index;
+        if (table == null) {
+            table = new NameTable(userCount);
+            for (int slot = 0; slot < slotCount; slot++) {
+                String user = nameAt(slot);
+                if (user != null) {
+                    table.put(user, slot);
+                }
+            }
+            index = table;
+        }
+        return table.find(name);
+    }
+
+    /**
+     * Counts the followers of every slot, on the first call.
+     * @return Number of followers by slot
+     */
+    private int[] followerCounts() {
+        int[] counts = followerCount;
+        if (counts == null) {
+            counts = new int[slotCount];
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (nameAt(slot) == null) {
+                    continue;
+                }
+                IdSet set = followeesAt(slot);
+                for (int p = 0; p < set.positions(); p++) {
+                    int followee = set.idAt(p);
+                    if (followee >= 0) {
+                        counts[followee]++;
+                    }
+                }
+            }
+            followerCount = counts;
+        }
+        return counts;
+    }
+}
@@ -43,6 +43,9 @@ public class NetworkTest {
         System.out.println("\n...Suggesting to Alex which user to follow...");
         System.out.println("Alex: based on our social network analysis, we recommemd to follow " + net.recommendWhoToFollow("Alex"));
         
+        System.out.println("\n...Suggesting to Alex three users to follow...");
+        System.out.println("Alex: we recommend to follow " + String.join(", ", net.recommendWhoToFollow("Alex", 3)));
+
         System.out.println("\n...Finding the most popular user...");
         System.out.println("The most popular user is: " + net.mostPopularUser());
 
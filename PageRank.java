@@ -0,0 +1,175 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/** Computes the PageRank of every user of a follow graph: a user is influential when
+ *  influential users follow it. Each power iteration pulls rank along the follower lists of
+ *  the compact graph, reading one array of ranks and writing the other (the two are swapped
+ *  after every iteration), with vertex ranges spread over the common fork-join pool.
+ *  Users who follow nobody spread their rank evenly over everyone. Iteration stops when the
+ *  total change of the ranks drops below the tolerance. Usage: new PageRank(graph).run(),
+ *  then the getters. */
+public class PageRank {
+    public static final double DEFAULT_DAMPING = 0.85;
+    public static final double DEFAULT_TOLERANCE = 1e-9;
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+    // Users in a task before it is split in two
+    private static final int SPLIT_USERS = 1 << 12;
+
+    // Fields
+    private final CompactGraph graph; // graph being ranked
+    private final double damping;     // probability of following a link rather than jumping anywhere
+    private final double tolerance;   // stop when the L1 change of an iteration is below this
+    private final int maxIterations;  // stop after this many iterations in any case
+    private double[] rank;            // current ranks by dense id, summing to 1
+    private double[] next;            // ranks being computed by the current iteration
+    private double[] share;           // rank each user passes to each of its followees
+    private double base;              // rank every user receives in this iteration before its followers add theirs
+    private int iterations;           // iterations run
+    private double delta;             // L1 change of the last iteration
+
+    /**
+     * Creates a PageRank computation with the default damping, tolerance and iteration limit.
+     * @param graph Graph to rank
+     */
+    public PageRank(CompactGraph graph) {
+        this(graph, DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+    /**
+     * Creates a PageRank computation.
+     * @param graph Graph to rank
+     * @param damping Probability of following a link, usually 0.85
+     * @param tolerance Convergence threshold on the L1 change of the ranks between iterations
+     * @param maxIterations Maximum number of iterations
+     */
+    public PageRank(CompactGraph graph, double damping, double tolerance, int maxIterations) {
+        this.graph = graph;
+        this.damping = damping;
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Runs power iterations until the ranks converge or the iteration limit is reached.
+     * @return This computation
+     */
+    public PageRank run() {
+        int n = graph.size();
+        rank = new double[n];
+        next = new double[n];
+        share = new double[n];
+        java.util.Arrays.fill(rank, 1.0 / Math.max(n, 1));
+        iterations = 0;
+        delta = 0;
+        while (n > 0 && iterations < maxIterations) {
+            double dangling = ForkJoinPool.commonPool().invoke(new Pass(true, 0, n));
+            base = (1 - damping) / n + damping * dangling / n;
+            delta = ForkJoinPool.commonPool().invoke(new Pass(false, 0, n));
+            double[] t = rank;
+            rank = next;
+            next = t;
+            iterations++;
+            if (delta < tolerance) {
+                break;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Gets the rank of a user.
+     * @param v Dense id of the user
+     * @return Rank between 0 and 1; all ranks sum to 1
+     */
+    public double rankOf(int v) {
+        return rank[v];
+    }
+
+    /**
+     * Gets the number of iterations run.
+     * @return Number of iterations
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Gets the L1 change of the ranks in the last iteration.
+     * @return Change of the last iteration
+     */
+    public double getDelta() {
+        return delta;
+    }
+
+    /**
+     * Finds the k users of highest rank with a bounded min-heap; ties go to the lower dense id.
+     * @param k Number of users to return
+     * @return Dense ids of up to k users, highest rank first
+     */
+    public int[] top(int k) {
+        int n = graph.size();
+        TopK best = new TopK(Math.min(k, n), this::compareRanks);
+        for (int v = 0; v < n; v++) {
+            best.offer(v);
+        }
+        return best.drain();
+    }
+
+    /** Compares users a and b for TopK: negative if a ranks higher, or as high with a lower dense id. */
+    private int compareRanks(int a, int b) {
+        return (rank[a] > rank[b]) ? -1 : (rank[a] < rank[b]) ? 1 : Integer.compare(a, b);
+    }
+
+    /** One parallel pass over a range of users: either computing the shares each user passes
+     *  on (returning the rank of users who follow nobody), or pulling the shares of each
+     *  user's followers into next (returning the L1 change). */
+    private class Pass extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean shares; // true for the share pass, false for the pull pass
+        private final int from;       // first user
+        private final int to;         // end of the range (exclusive)
+
+        Pass(boolean shares, int from, int to) {
+            this.shares = shares;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from > SPLIT_USERS) {
+                int middle = (from + to) >>> 1;
+                Pass right = new Pass(shares, middle, to);
+                right.fork();
+                double left = new Pass(shares, from, middle).compute();
+                return left + right.join();
+            }
+            double sum = 0;
+            if (shares) {
+                int[] outOffsets = graph.outOffsets();
+                for (int u = from; u < to; u++) {
+                    int degree = outOffsets[u + 1] - outOffsets[u];
+                    if (degree == 0) {
+                        share[u] = 0;
+                        sum += rank[u];
+                    } else {
+                        share[u] = rank[u] / degree;
+                    }
+                }
+            } else {
+                int[] inOffsets = graph.inOffsets();
+                int[] inSources = graph.inSources();
+                for (int v = from; v < to; v++) {
+                    double pulled = 0;
+                    for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+                        pulled += share[inSources[i]];
+                    }
+                    next[v] = base + damping * pulled;
+                    sum += Math.abs(next[v] - rank[v]);
+                }
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/** Finds shortest follow paths between users of a network with a bidirectional breadth-first
+ *  search: one search walks followees forward from the source, the other walks the follower
+ *  index backward from the target, and each round extends whichever frontier is smaller by one
+ *  full level, until the two meet. The searches run on the live network, so nothing has to be
+ *  rebuilt between a change and a query. Visited marks are stamped with a query number, so the
+ *  arrays are allocated once and reused by every query without clearing. */
+public class PathFinder {
+    // Fields
+    private final Network network;  // network to search
+    private int stamp;              // number of the current query
+    private int[] forwardStamp;     // forwardStamp[slot] == stamp if the forward search reached slot
+    private int[] backwardStamp;    // backwardStamp[slot] == stamp if the backward search reached slot
+    private int[] forwardParent;    // slot the forward search reached each slot from, -1 for the source
+    private int[] backwardParent;   // slot the backward search reached each slot from, -1 for the target
+    private int[] forwardDistance;  // follows from the source to each slot
+    private int[] backwardDistance; // follows from each slot to the target
+    private int[] forwardQueue;     // slots in the order the forward search reached them
+    private int[] backwardQueue;    // slots in the order the backward search reached them
+
+    /**
+     * Creates a path finder for a network.
+     * @param network Network to search
+     */
+    public PathFinder(Network network) {
+        this.network = network;
+        this.forwardStamp = new int[0];
+    }
+
+    /**
+     * Finds a shortest chain of follows from one user to another.
+     * @param source Slot of the first user
+     * @param target Slot of the last user
+     * @return Slots along the path, source first and target last; null if there is no path
+     */
+    public int[] find(int source, int target) {
+        if (source == target) {
+            return new int[] {source};
+        }
+        prepare();
+        int forwardHead = 0;
+        int forwardTail = 0;
+        int backwardHead = 0;
+        int backwardTail = 0;
+        forwardStamp[source] = stamp;
+        forwardParent[source] = -1;
+        forwardDistance[source] = 0;
+        forwardQueue[forwardTail++] = source;
+        backwardStamp[target] = stamp;
+        backwardParent[target] = -1;
+        backwardDistance[target] = 0;
+        backwardQueue[backwardTail++] = target;
+        while (forwardHead < forwardTail && backwardHead < backwardTail) {
+            int meet = -1;
+            int best = Integer.MAX_VALUE;
+            if (forwardTail - forwardHead <= backwardTail - backwardHead) {
+                int levelEnd = forwardTail;
+                while (forwardHead < levelEnd) {
+                    int u = forwardQueue[forwardHead++];
+                    IdSet followees = network.getUserAt(u).followees();
+                    for (int p = 0; p < followees.positions(); p++) {
+                        int v = followees.idAt(p);
+                        if (v < 0 || forwardStamp[v] == stamp) {
+                            continue;
+                        }
+                        forwardStamp[v] = stamp;
+                        forwardParent[v] = u;
+                        forwardDistance[v] = forwardDistance[u] + 1;
+                        forwardQueue[forwardTail++] = v;
+                        if (backwardStamp[v] == stamp && forwardDistance[v] + backwardDistance[v] < best) {
+                            best = forwardDistance[v] + backwardDistance[v];
+                            meet = v;
+                        }
+                    }
+                }
+            } else {
+                int levelEnd = backwardTail;
+                while (backwardHead < levelEnd) {
+                    int v = backwardQueue[backwardHead++];
+                    int[] followers = network.followersOf(v);
+                    int count = network.followerCountOf(v);
+                    for (int i = 0; i < count; i++) {
+                        int u = followers[i];
+                        if (backwardStamp[u] == stamp) {
+                            continue;
+                        }
+                        backwardStamp[u] = stamp;
+                        backwardParent[u] = v;
+                        backwardDistance[u] = backwardDistance[v] + 1;
+                        backwardQueue[backwardTail++] = u;
+                        if (forwardStamp[u] == stamp && forwardDistance[u] + backwardDistance[u] < best) {
+                            best = forwardDistance[u] + backwardDistance[u];
+                            meet = u;
+                        }
+                    }
+                }
+            }
+            if (meet != -1) {
+                int[] path = new int[best + 1];
+                int i = forwardDistance[meet];
+                for (int slot = meet; slot != -1; slot = forwardParent[slot]) {
+                    path[i--] = slot;
+                }
+                i = forwardDistance[meet];
+                for (int slot = meet; slot != -1; slot = backwardParent[slot]) {
+                    path[i++] = slot;
+                }
+                return path;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Starts a new query: sizes the arrays for the network and advances the stamp.
+     */
+    private void prepare() {
+        int slots = network.slotLimit();
+        if (forwardStamp.length < slots) {
+            int capacity = Math.max(slots, forwardStamp.length * 2);
+            forwardStamp = new int[capacity];
+            backwardStamp = new int[capacity];
+            forwardParent = new int[capacity];
+            backwardParent = new int[capacity];
+            forwardDistance = new int[capacity];
+            backwardDistance = new int[capacity];
+            forwardQueue = new int[capacity];
+            backwardQueue = new int[capacity];
+            stamp = 0;
+        }
+        if (++stamp == Integer.MAX_VALUE) {
+            java.util.Arrays.fill(forwardStamp, 0);
+            java.util.Arrays.fill(backwardStamp, 0);
+            stamp = 1;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/** Estimates the personalized PageRank of users around one source user by Monte Carlo:
+ *  many short random walks start at the source, at each step stop with the reset probability
+ *  or otherwise move to a random followee, and every user they pass through gets a visit.
+ *  Users visited most are the best recommendations, and unlike mutual-followee counting they
+ *  can be any number of hops away. The walks are split into fork-join tasks; each task has its
+ *  own SplittableRandom, split from its parent's before forking, and counts its visits in a
+ *  private open-addressing table of primitive arrays, merged as the tasks join. The walks run
+ *  on the live network, like PathFinder, so nothing has to be rebuilt between a change and a
+ *  query. The work is bounded by the walk budget times the maximum walk length, whatever the
+ *  degree of the source, because a user's followee set keeps its follow order in a list, and
+ *  a random followee is drawn from that list in O(1) expected time. */
+public class PersonalizedPageRank {
+    public static final int DEFAULT_WALKS = 1 << 14;
+    public static final int DEFAULT_MAX_LENGTH = 16;
+    public static final double DEFAULT_RESET = 0.15;
+    // Walks in a task before it is split in two
+    private static final int SPLIT_WALKS = 1 << 10;
+
+    // Fields
+    private final Network network;    // network to walk
+    private final int walks;          // number of walks per query, the walk budget
+    private final int maxLength;      // steps after which a walk stops in any case
+    private final double reset;       // probability of stopping before each step
+
+    /**
+     * Creates a recommender with the default walk budget, walk length and reset probability.
+     * @param network Network to walk
+     */
+    public PersonalizedPageRank(Network network) {
+        this(network, DEFAULT_WALKS, DEFAULT_MAX_LENGTH, DEFAULT_RESET);
+    }
+
+    /**
+     * Creates a recommender.
+     * @param network Network to walk
+     * @param walks Number of walks per query; more walks give steadier results and cost proportionally more
+     * @param maxLength Maximum number of steps of a walk
+     * @param reset Probability of stopping a walk before each step, usually 0.15
+     */
+    public PersonalizedPageRank(Network network, int walks, int maxLength, double reset) {
+        this.network = network;
+        this.walks = Math.max(walks, 0);
+        this.maxLength = Math.max(maxLength, 1);
+        this.reset = reset;
+    }
+
+    /**
+     * Finds the users that walks from a source visit most, leaving out the source and the users it already follows.
+     * Ties go to the lower slot. Users never visited are not returned, so the list may be shorter than k.
+     * @param source Slot of the user to recommend for
+     * @param k Maximum number of users to return
+     * @param seed Seed of the random walks; the same seed on the same network gives the same answer
+     * @return Slots of up to k users, most visited first
+     */
+    public int[] recommend(int source, int k, long seed) {
+        Visits visits = (walks == 0) ? new Visits()
+                : ForkJoinPool.commonPool().invoke(new WalkTask(source, walks, new SplittableRandom(seed)));
+        IdSet followed = network.getUserAt(source).followees();
+        TopK best = new TopK(Math.min(k, visits.size), (a, b) -> compareVisits(visits, a, b)); // items are table positions, no more than the visited users
+        for (int i = 0; i < visits.keys.length && k > 0; i++) {
+            int v = visits.keys[i];
+            if (v >= 0 && v != source && !followed.contains(v)) {
+                best.offer(i);
+            }
+        }
+        int[] ans = best.drain();
+        for (int i = 0; i < ans.length; i++) {
+            ans[i] = visits.keys[ans[i]];
+        }
+        return ans;
+    }
+
+    /** Compares the users at table positions a and b for TopK: negative if a was visited more, or as often with a lower slot. */
+    private static int compareVisits(Visits visits, int a, int b) {
+        int ca = visits.counts[a];
+        int cb = visits.counts[b];
+        return (ca != cb) ? Integer.compare(cb, ca) : Integer.compare(visits.keys[a], visits.keys[b]);
+    }
+
+    /** Visit counts by slot in an open-addressing table; -1 marks an empty bucket. */
+    private static final class Visits {
+        int[] keys = new int[64];   // slots
+        int[] counts = new int[64]; // visits of each key
+        int size;                   // number of keys
+
+        Visits() {
+            java.util.Arrays.fill(keys, -1);
+        }
+
+        void add(int v, int visits) {
+            if ((size + 1) * 2 > keys.length) {
+                int[] oldKeys = keys;
+                int[] oldCounts = counts;
+                keys = new int[oldKeys.length * 2];
+                counts = new int[oldKeys.length * 2];
+                java.util.Arrays.fill(keys, -1);
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] >= 0) {
+                        add(oldKeys[i], oldCounts[i]);
+                    }
+                }
+            }
+            int mask = keys.length - 1;
+            int h = v * 0x9E3779B9;
+            int i = (h ^ (h >>> 16)) & mask;
+            while (keys[i] != -1 && keys[i] != v) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == -1) {
+                keys[i] = v;
+                size++;
+            }
+            counts[i] += visits;
+        }
+
+        Visits merge(Visits other) {
+            Visits small = (size < other.size) ? this : other;
+            Visits large = (small == this) ? other : this;
+            for (int i = 0; i < small.keys.length; i++) {
+                if (small.keys[i] >= 0) {
+                    large.add(small.keys[i], small.counts[i]);
+                }
+            }
+            return large;
+        }
+    }
+
+    /** Runs a share of the walks and counts their visits. */
+    private class WalkTask extends RecursiveTask<Visits> {
+        private static final long serialVersionUID = 1L;
+
+        private final int source;              // where every walk starts
+        private final int count;               // number of walks to run
+        private final SplittableRandom random; // generator owned by this task
+
+        WalkTask(int source, int count, SplittableRandom random) {
+            this.source = source;
+            this.count = count;
+            this.random = random;
+        }
+
+        @Override
+        protected Visits compute() {
+            if (count > SPLIT_WALKS) {
+                WalkTask right = new WalkTask(source, count / 2, random.split());
+                right.fork();
+                Visits left = new WalkTask(source, count - count / 2, random).compute();
+                return left.merge(right.join());
+            }
+            Visits visits = new Visits();
+            for (int w = 0; w < count; w++) {
+                int v = source;
+                for (int step = 0; step < maxLength && random.nextDouble() >= reset; step++) {
+                    IdSet followees = network.getUserAt(v).followees();
+                    if (followees.size() == 0) {
+                        break;
+                    }
+                    // At most half the entries are empty, so this takes two draws on average
+                    int next;
+                    do {
+                        next = followees.orderedAt(random.nextInt(followees.orderPositions()));
+                    } while (next < 0);
+                    v = next;
+                    visits.add(v, 1);
+                }
+            }
+            return visits;
+        }
+    }
+}
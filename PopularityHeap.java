@@ -0,0 +1,219 @@
+/** An indexed binary max-heap of user slots ordered by follower count.
+ *  Users with more followers come first; among equal counts the lower slot
+ *  (the user added to the network first) comes first. Every slot remembers its
+ *  position in the heap, so a count can change by one in O(log n). */
+public class PopularityHeap {
+    // Fields
+    private int[] heap;     // slots in heap order
+    private int[] position; // position[slot] is the index of slot in heap, -1 if absent
+    private int[] count;    // count[slot] is the follower count of slot
+    private int size;       // number of slots in the heap
+
+    /**
+     * Creates an empty heap.
+     * @param capacity Number of slots the heap can hold before growing
+     */
+    public PopularityHeap(int capacity) {
+        capacity = Math.max(capacity, 1);
+        heap = new int[capacity];
+        position = new int[capacity];
+        count = new int[capacity];
+        java.util.Arrays.fill(position, -1);
+        size = 0;
+    }
+
+    /**
+     * Gets the number of slots in the heap.
+     * @return Number of slots
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the follower count of a slot in the heap.
+     * @param slot Slot to read
+     * @return Follower count of the slot
+     */
+    public int count(int slot) {
+        return count[slot];
+    }
+
+    /**
+     * Adds a slot with no followers.
+     * @param slot Slot to add
+     */
+    public void add(int slot) {
+        if (slot >= position.length) {
+            int capacity = Math.max(position.length * 2, slot + 1);
+            int oldLength = position.length;
+            position = java.util.Arrays.copyOf(position, capacity);
+            count = java.util.Arrays.copyOf(count, capacity);
+            java.util.Arrays.fill(position, oldLength, capacity, -1);
+        }
+        if (size == heap.length) {
+            heap = java.util.Arrays.copyOf(heap, heap.length * 2);
+        }
+        count[slot] = 0;
+        heap[size] = slot;
+        position[slot] = size;
+        size++;
+        siftUp(size - 1);
+    }
+
+    /**
+     * Removes a slot from the heap.
+     * @param slot Slot to remove
+     */
+    public void remove(int slot) {
+        int i = position[slot];
+        position[slot] = -1;
+        size--;
+        if (i == size) {
+            return;
+        }
+        int moved = heap[size];
+        heap[i] = moved;
+        position[moved] = i;
+        siftUp(i);
+        siftDown(position[moved]);
+    }
+
+    /**
+     * Records one more follower for a slot.
+     * @param slot Slot that gained a follower
+     */
+    public void increment(int slot) {
+        count[slot]++;
+        siftUp(position[slot]);
+    }
+
+    /**
+     * Records one follower less for a slot.
+     * @param slot Slot that lost a follower
+     */
+    public void decrement(int slot) {
+        count[slot]--;
+        siftDown(position[slot]);
+    }
+
+    /**
+     * Sets the follower count of a slot directly, for building the heap in bulk.
+     * @param slot Slot whose count changes
+     * @param followers New follower count
+     */
+    public void setCount(int slot, int followers) {
+        int old = count[slot];
+        count[slot] = followers;
+        if (followers > old) {
+            siftUp(position[slot]);
+        } else {
+            siftDown(position[slot]);
+        }
+    }
+
+    /**
+     * Gets the most popular slot.
+     * @return Slot with the most followers, -1 if the heap is empty
+     */
+    public int top() {
+        return (size == 0) ? -1 : heap[0];
+    }
+
+    /**
+     * Gets the k most popular slots in ranked order, in O(k log k) time.
+     * The heap itself is not modified; a small frontier heap of candidate positions is explored instead.
+     * @param k Number of slots to return
+     * @return Up to k slots, most popular first
+     */
+    public int[] top(int k) {
+        k = Math.min(Math.max(k, 0), size);
+        int[] result = new int[k];
+        int[] frontier = new int[2 * k + 1]; // heap positions, ordered by the slots they hold
+        int frontierSize = 0;
+        if (k > 0) {
+            frontier[frontierSize++] = 0;
+        }
+        for (int n = 0; n < k; n++) {
+            int best = frontier[0];
+            frontier[0] = frontier[--frontierSize];
+            frontierDown(frontier, frontierSize, 0);
+            result[n] = heap[best];
+            for (int child = 2 * best + 1; child <= 2 * best + 2 && child < size; child++) {
+                frontier[frontierSize++] = child;
+                frontierUp(frontier, frontierSize - 1);
+            }
+        }
+        return result;
+    }
+
+    /** Checks whether slot a ranks before slot b. */
+    private boolean before(int a, int b) {
+        return count[a] > count[b] || (count[a] == count[b] && a < b);
+    }
+
+    /** Moves the slot at heap index i up to its place. */
+    private void siftUp(int i) {
+        int slot = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!before(slot, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = slot;
+        position[slot] = i;
+    }
+
+    /** Moves the slot at heap index i down to its place. */
+    private void siftDown(int i) {
+        int slot = heap[i];
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], slot)) {
+                break;
+            }
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = slot;
+        position[slot] = i;
+    }
+
+    /** Restores the frontier heap after appending at index i. */
+    private void frontierUp(int[] frontier, int i) {
+        int p = frontier[i];
+        while (i > 0 && before(heap[p], heap[frontier[(i - 1) / 2]])) {
+            frontier[i] = frontier[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        frontier[i] = p;
+    }
+
+    /** Restores the frontier heap after replacing the entry at index i. */
+    private void frontierDown(int[] frontier, int frontierSize, int i) {
+        if (frontierSize == 0) {
+            return;
+        }
+        int p = frontier[i];
+        while (2 * i + 1 < frontierSize) {
+            int child = 2 * i + 1;
+            if (child + 1 < frontierSize && before(heap[frontier[child + 1]], heap[frontier[child]])) {
+                child++;
+            }
+            if (!before(heap[frontier[child]], heap[p])) {
+                break;
+            }
+            frontier[i] = frontier[child];
+            i = child;
+        }
+        frontier[i] = p;
+    }
+}
@@ -0,0 +1,39 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/** A transport that gives every shard its own worker thread fed by an in-memory queue,
+ *  so different shards serve their messages in parallel. */
+public class QueueTransport implements ShardTransport {
+    // Fields
+    private final ExecutorService[] workers; // one single-threaded executor per shard
+
+    /**
+     * Starts one worker per shard.
+     * @param shards Number of shards
+     */
+    public QueueTransport(int shards) {
+        workers = new ExecutorService[shards];
+        for (int i = 0; i < shards; i++) {
+            String name = "shard-" + i;
+            workers[i] = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> send(int shard, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, workers[shard]);
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < workers.length; i++) {
+            workers[i].shutdown();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+/** Ways to score a candidate in Network.recommendWhoToFollow. Every score is built from the
+ *  followees the candidate shares with the user, found in one walk of the follower index. */
+public enum RecommendationScore {
+    /** The number of shared followees. */
+    MUTUAL,
+    /** The shared followees over all followees of either user, so candidates who follow
+     *  everyone score no higher than focused ones. */
+    JACCARD,
+    /** The sum over shared followees of 1 / log(followers of that followee), so sharing a
+     *  niche account counts for more than sharing a celebrity. */
+    ADAMIC_ADAR
+}
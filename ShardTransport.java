@@ -0,0 +1,21 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/** Delivers messages to the shards of a ShardedNetwork. A message is a task that runs
+ *  against one shard's state; the transport guarantees that the tasks sent to a shard run
+ *  one at a time, in the order they were sent, so shard state needs no locks. */
+public interface ShardTransport extends AutoCloseable {
+    /**
+     * Sends a task to a shard.
+     * @param shard Number of the shard
+     * @param task Task to run on the shard's worker
+     * @return Future completed with the task's result
+     */
+    <T> CompletableFuture<T> send(int shard, Supplier<T> task);
+
+    /**
+     * Stops the shard workers. Tasks already sent still run.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,471 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** A social network whose users are hash-partitioned across several shards.
+ *  Each shard owns the names, followee sets, follower lists and popularity heap of its users
+ *  and is only ever touched by the worker its transport assigns to it, so shards work in
+ *  parallel without locks. A user's global id is its local id times the number of shards plus
+ *  its shard number, so any shard can tell where an id lives. Operations are messages:
+ *  a follow crosses from the followee's shard to the follower's and back, mostPopularUser
+ *  gathers one candidate per shard, and recommendWhoToFollow routes follower ids to the
+ *  shards of the candidates. Ties go to the user added first, as in Network. */
+public class ShardedNetwork implements AutoCloseable {
+    // Fields
+    private final Shard[] shards;          // the partitions
+    private final ShardTransport transport; // carries messages to the shards
+    private final AtomicLong nextSequence;  // global order of addUser calls, for ties
+    private final AtomicInteger userCount;  // number of users in all shards
+
+    /** A user with a score, as returned by a shard for merging. */
+    private static final class Ranked {
+        final String name;   // name of the user
+        final int score;     // followers, or shared followees
+        final long sequence; // when the user was added
+
+        Ranked(String name, int score, long sequence) {
+            this.name = name;
+            this.score = score;
+            this.sequence = sequence;
+        }
+
+        boolean ranksBefore(Ranked other) {
+            return other == null || score > other.score || (score == other.score && sequence < other.sequence);
+        }
+
+        /** Compares two users for TopK: negative if a ranks before b. */
+        static int compare(Ranked a, Ranked b) {
+            return (a.score != b.score) ? Integer.compare(b.score, a.score) : Long.compare(a.sequence, b.sequence);
+        }
+    }
+
+    /** One partition of the network. Only its transport worker calls its methods. */
+    private static final class Shard {
+        final int number;       // this shard's number
+        final int shardCount;   // number of shards
+        NameTable index = new NameTable(16); // name -> local id
+        String[] names = new String[16];     // names by local id
+        long[] sequence = new long[16];      // global order of each user
+        IdSet[] followees = new IdSet[16];   // global ids followed by each user, in follow order
+        int[][] followers = new int[16][];   // global ids of the followers of each user
+        int[] followerCount = new int[16];   // valid entries of followers
+        PopularityHeap popularity = new PopularityHeap(16); // local ids by follower count
+        int size;                            // number of users
+        int[] scratch = new int[16];         // shared-followee counts by local id, zeroed after use
+
+        Shard(int number, int shardCount) {
+            this.number = number;
+            this.shardCount = shardCount;
+        }
+
+        int globalId(int local) {
+            return local * shardCount + number;
+        }
+
+        /** Adds a user, taking its sequence number on this worker so that local ids follow sequence order. */
+        boolean add(String name, AtomicLong order) {
+            if (index.find(name) != -1) {
+                return false;
+            }
+            if (size == names.length) {
+                int capacity = size * 2;
+                names = java.util.Arrays.copyOf(names, capacity);
+                sequence = java.util.Arrays.copyOf(sequence, capacity);
+                followees = java.util.Arrays.copyOf(followees, capacity);
+                followers = java.util.Arrays.copyOf(followers, capacity);
+                followerCount = java.util.Arrays.copyOf(followerCount, capacity);
+                scratch = new int[capacity];
+            }
+            names[size] = name;
+            sequence[size] = order.getAndIncrement();
+            followees[size] = new IdSet(true);
+            index.put(name, size);
+            popularity.add(size);
+            size++;
+            return true;
+        }
+
+        int idOf(String name) {
+            int local = index.find(name);
+            return (local == -1) ? -1 : globalId(local);
+        }
+
+        /** Adds a followee to a local user; returns the follower's global id, or -1 if nothing changed. */
+        int follow(String name, int followee) {
+            int local = index.find(name);
+            if (local == -1 || globalId(local) == followee || !followees[local].add(followee)) {
+                return -1;
+            }
+            return globalId(local);
+        }
+
+        /** Records a follower of a local user. */
+        boolean followed(int local, int follower) {
+            int[] list = followers[local];
+            int count = followerCount[local];
+            if (list == null) {
+                list = new int[4];
+            } else if (count == list.length) {
+                list = java.util.Arrays.copyOf(list, count * 2);
+            }
+            list[count] = follower;
+            followers[local] = list;
+            followerCount[local] = count + 1;
+            popularity.increment(local);
+            return true;
+        }
+
+        Ranked mostPopular() {
+            int local = popularity.top();
+            return (local == -1) ? null : new Ranked(names[local], popularity.count(local), sequence[local]);
+        }
+
+        /** Concatenates the followers of the given local users. */
+        int[] followersOf(int[] locals) {
+            int total = 0;
+            for (int i = 0; i < locals.length; i++) {
+                total += followerCount[locals[i]];
+            }
+            int[] ans = new int[total];
+            int n = 0;
+            for (int i = 0; i < locals.length; i++) {
+                System.arraycopy(followers[locals[i]], 0, ans, n, followerCount[locals[i]]);
+                n += followerCount[locals[i]];
+            }
+            return ans;
+        }
+
+        /**
+         * Ranks the local users for a recommendation.
+         * @param hits Local ids of candidates, once per shared followee
+         * @param excluded Local ids of the target and its followees, ascending
+         * @param k Number of users to return
+         * @return Up to k users, best first
+         */
+        Ranked[] recommend(int[] hits, int[] excluded, int k) {
+            int distinct = 0;
+            int[] candidates = new int[hits.length];
+            for (int i = 0; i < hits.length; i++) {
+                if (scratch[hits[i]]++ == 0) {
+                    candidates[distinct++] = hits[i];
+                }
+            }
+            TopK best = new TopK(Math.min(k, size), (a, b) -> (scratch[a] != scratch[b]) // no more than the local users
+                    ? Integer.compare(scratch[b], scratch[a]) : Long.compare(sequence[a], sequence[b]));
+            for (int i = 0; i < distinct; i++) {
+                int local = candidates[i];
+                if (SortedInts.search(excluded, 0, excluded.length, local) < 0) {
+                    best.offer(local);
+                }
+            }
+            // Users who share no followee rank by when they were added, which is local id order,
+            // so once one of them is not kept, none after it would be
+            for (int local = 0; local < size && k > 0; local++) {
+                if (scratch[local] == 0 && SortedInts.search(excluded, 0, excluded.length, local) < 0 && !best.offer(local)) {
+                    break;
+                }
+            }
+            int[] locals = best.drain();
+            Ranked[] ans = new Ranked[locals.length];
+            for (int i = 0; i < locals.length; i++) {
+                ans[i] = new Ranked(names[locals[i]], scratch[locals[i]], sequence[locals[i]]);
+            }
+            for (int i = 0; i < distinct; i++) {
+                scratch[candidates[i]] = 0;
+            }
+            return ans;
+        }
+
+        /** Gathers every user with its followees, for toString. */
+        Object[] dump() {
+            Object[] rows = new Object[size];
+            for (int local = 0; local < size; local++) {
+                rows[local] = new Object[] {globalId(local), sequence[local], names[local], followees[local].toOrderedArray()};
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Creates a network with the given number of shards, each served by its own worker thread.
+     * @param shardCount Number of shards
+     */
+    public ShardedNetwork(int shardCount) {
+        this(shardCount, new QueueTransport(shardCount));
+    }
+
+    /**
+     * Creates a network with the given number of shards and transport.
+     * @param shardCount Number of shards
+     * @param transport Transport for the shards, such as a QueueTransport or a LoopbackTransport
+     */
+    public ShardedNetwork(int shardCount, ShardTransport transport) {
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, shardCount);
+        }
+        this.transport = transport;
+        this.nextSequence = new AtomicLong();
+        this.userCount = new AtomicInteger();
+    }
+
+    /**
+     * Gets the current number of users in the network.
+     * @return Number of users in all shards
+     */
+    public int getUserCount() {
+        return userCount.get();
+    }
+
+    /**
+     * Adds a new user to the shard its name hashes to.
+     * @param name Name of new user
+     * @return true if user added successfully, false if user exists
+     */
+    public boolean addUser(String name) {
+        if (name == null) {
+            return false;
+        }
+        int s = shardOf(name);
+        boolean added = transport.send(s, () -> shards[s].add(name, nextSequence)).join();
+        if (added) {
+            userCount.incrementAndGet();
+        }
+        return added;
+    }
+
+    /**
+     * Finds the user with the given name.
+     * @param name Name of user to find (case-insensitive)
+     * @return Name of the user as it was added, null if not found
+     */
+    public String getUser(String name) {
+        if (name == null) {
+            return null;
+        }
+        int s = shardOf(name);
+        return transport.send(s, () -> {
+            int local = shards[s].index.find(name);
+            return (local == -1) ? null : shards[s].names[local];
+        }).join();
+    }
+
+    /**
+     * Makes one user follow another. The followee's shard resolves its id, the follower's shard
+     * adds the edge, and the followee's shard then records the new follower.
+     * @param name1 Name of user who will follow
+     * @param name2 Name of user to be followed
+     * @return true if follow relationship created successfully, false otherwise
+     */
+    public boolean addFollowee(String name1, String name2) {
+        if (name1 == null || name2 == null) {
+            return false;
+        }
+        int s1 = shardOf(name1);
+        int s2 = shardOf(name2);
+        return transport.send(s2, () -> shards[s2].idOf(name2))
+                .thenCompose(followee -> (followee == -1)
+                        ? CompletableFuture.completedFuture(-1)
+                        : transport.send(s1, () -> shards[s1].follow(name1, followee)))
+                .thenCompose(follower -> (follower == -1)
+                        ? CompletableFuture.completedFuture(false)
+                        : transport.send(s2, () -> shards[s2].followed(shards[s2].index.find(name2), follower)))
+                .join();
+    }
+
+    /**
+     * Checks if one user follows another.
+     * @param name1 Name of the user who may follow
+     * @param name2 Name of the user who may be followed
+     * @return true if both users exist and the first follows the second
+     */
+    public boolean follows(String name1, String name2) {
+        if (name1 == null || name2 == null) {
+            return false;
+        }
+        int s1 = shardOf(name1);
+        int s2 = shardOf(name2);
+        int followee = transport.send(s2, () -> shards[s2].idOf(name2)).join();
+        return followee != -1 && transport.send(s1, () -> {
+            int local = shards[s1].index.find(name1);
+            return local != -1 && shards[s1].followees[local].contains(followee);
+        }).join();
+    }
+
+    /**
+     * Finds the most followed user. Every shard reports its own most followed user from its
+     * popularity heap, in parallel, and the reports are merged.
+     * @return Name of user with most followers, null if network is empty
+     */
+    public String mostPopularUser() {
+        java.util.List<CompletableFuture<Ranked>> replies = new java.util.ArrayList<>(shards.length);
+        for (int s = 0; s < shards.length; s++) {
+            int shard = s;
+            replies.add(transport.send(s, () -> shards[shard].mostPopular()));
+        }
+        Ranked best = null;
+        for (int s = 0; s < shards.length; s++) {
+            Ranked candidate = replies.get(s).join();
+            if (candidate != null && candidate.ranksBefore(best)) {
+                best = candidate;
+            }
+        }
+        return (best == null) ? null : best.name;
+    }
+
+    /**
+     * Recommends a user to follow based on mutual followees.
+     * @param name Name of user to get recommendation for
+     * @return Name of recommended user to follow, null if no recommendation available
+     */
+    public String recommendWhoToFollow(String name) {
+        String[] best = recommendWhoToFollow(name, 1);
+        return (best == null || best.length == 0) ? null : best[0];
+    }
+
+    /**
+     * Recommends the k best users to follow, with the same ranking as Network.recommendWhoToFollow.
+     * The user's shard returns its followees; the shards that own those followees return their
+     * followers; the follower ids are routed to the shards that own them, and each shard ranks
+     * its own candidates, filling in users who share nothing. The per-shard lists are merged.
+     * @param name Name of user to get recommendations for
+     * @param k Maximum number of recommendations
+     * @return Names of up to k recommended users, best first; null if the user does not exist
+     */
+    public String[] recommendWhoToFollow(String name, int k) {
+        if (name == null) {
+            return null;
+        }
+        int home = shardOf(name);
+        int[] query = transport.send(home, () -> {
+            int local = shards[home].index.find(name);
+            if (local == -1) {
+                return null;
+            }
+            int[] ids = shards[home].followees[local].toSortedArray();
+            int[] ans = java.util.Arrays.copyOf(ids, ids.length + 1);
+            ans[ids.length] = shards[home].globalId(local); // the user's own id goes last
+            return ans;
+        }).join();
+        if (query == null) {
+            return null;
+        }
+        if (k <= 0) {
+            return new String[0];
+        }
+        int n = shards.length;
+        int[][] owned = partition(query, query.length - 1);
+        java.util.List<CompletableFuture<int[]>> fanOut = new java.util.ArrayList<>(n);
+        for (int s = 0; s < n; s++) {
+            int shard = s;
+            int[] locals = owned[s];
+            fanOut.add((locals.length == 0)
+                    ? CompletableFuture.completedFuture(locals)
+                    : transport.send(s, () -> shards[shard].followersOf(locals)));
+        }
+        int[] hitIds = new int[0];
+        for (int s = 0; s < n; s++) {
+            int[] part = fanOut.get(s).join();
+            int length = hitIds.length;
+            hitIds = java.util.Arrays.copyOf(hitIds, length + part.length);
+            System.arraycopy(part, 0, hitIds, length, part.length);
+        }
+        int[][] hits = partition(hitIds, hitIds.length);
+        int[][] excluded = partition(query, query.length);
+        java.util.List<CompletableFuture<Ranked[]>> lists = new java.util.ArrayList<>(n);
+        for (int s = 0; s < n; s++) {
+            int shard = s;
+            int[] shardHits = hits[s];
+            int[] shardExcluded = excluded[s];
+            java.util.Arrays.sort(shardExcluded);
+            lists.add(transport.send(s, () -> shards[shard].recommend(shardHits, shardExcluded, k)));
+        }
+        java.util.List<Ranked> all = new java.util.ArrayList<>();
+        for (int s = 0; s < n; s++) {
+            all.addAll(java.util.Arrays.asList(lists.get(s).join()));
+        }
+        TopK best = new TopK(Math.min(k, all.size()), (a, b) -> Ranked.compare(all.get(a), all.get(b))); // items are positions in all
+        for (int i = 0; i < all.size(); i++) {
+            best.offer(i);
+        }
+        int[] positions = best.drain();
+        String[] ans = new String[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            ans[i] = all.get(positions[i]).name;
+        }
+        return ans;
+    }
+
+    /**
+     * Creates a string representation of the network, in the format of Network.toString:
+     * users in the order they were added, each with its followees in the order they were followed.
+     * @return String describing all users and their followees
+     */
+    public String toString() {
+        java.util.List<CompletableFuture<Object[]>> replies = new java.util.ArrayList<>(shards.length);
+        for (int s = 0; s < shards.length; s++) {
+            int shard = s;
+            replies.add(transport.send(s, () -> shards[shard].dump()));
+        }
+        java.util.List<Object[]> rows = new java.util.ArrayList<>();
+        java.util.Map<Integer, Object[]> byId = new java.util.HashMap<>();
+        for (int s = 0; s < shards.length; s++) {
+            for (Object row : replies.get(s).join()) {
+                Object[] user = (Object[]) row;
+                rows.add(user);
+                byId.put((Integer) user[0], user);
+            }
+        }
+        rows.sort(java.util.Comparator.comparingLong(user -> (Long) user[1]));
+        StringBuilder ans = new StringBuilder("Network:");
+        for (Object[] user : rows) {
+            ans.append('\n').append(user[2]).append(" -> ");
+            int[] ids = (int[]) user[3];
+            for (int i = 0; i < ids.length; i++) {
+                ans.append(byId.get(ids[i])[2]).append(' ');
+            }
+        }
+        return ans.toString();
+    }
+
+    /**
+     * Stops the shard workers of the transport.
+     */
+    @Override
+    public void close() {
+        transport.close();
+    }
+
+    /**
+     * Picks the shard that owns a name.
+     * @param name Name of a user (case-insensitive)
+     * @return Shard number
+     */
+    private int shardOf(String name) {
+        return Math.floorMod(NameTable.hash(name) * 0x9E3779B9, shards.length);
+    }
+
+    /**
+     * Splits global ids by owning shard, converting them to local ids.
+     * @param ids Global ids
+     * @param count Number of ids to split
+     * @return Local ids for each shard
+     */
+    private int[][] partition(int[] ids, int count) {
+        int n = shards.length;
+        int[] sizes = new int[n];
+        for (int i = 0; i < count; i++) {
+            sizes[ids[i] % n]++;
+        }
+        int[][] parts = new int[n][];
+        for (int s = 0; s < n; s++) {
+            parts[s] = new int[sizes[s]];
+            sizes[s] = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            int s = ids[i] % n;
+            parts[s][sizes[s]++] = ids[i] / n;
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,97 @@
+/** Operations on sorted, duplicate-free int arrays, used to store sets of user ids.
+ *  Each array is paired with a length, so arrays can keep spare room at the end. */
+public class SortedInts {
+
+    // Galloping pays off once the larger array is this many times longer than the smaller one
+    static final int GALLOP_RATIO = 32;
+
+    /**
+     * Finds a value in a sorted array.
+     * @param a Sorted array
+     * @param from First index to search
+     * @param to End of the range to search (exclusive)
+     * @param value Value to find
+     * @return Index of the value if found; otherwise -(insertion point) - 1
+     */
+    public static int search(int[] a, int from, int to, int value) {
+        int lo = from;
+        int hi = to - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < value) {
+                lo = mid + 1;
+            } else if (a[mid] > value) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    /**
+     * Counts the values that two sorted arrays have in common.
+     * A linear merge is used for arrays of similar length; when one array is much
+     * longer, the values of the shorter one are located by galloping through it instead.
+     * @param a First sorted array
+     * @param aLength Number of values in a
+     * @param b Second sorted array
+     * @param bLength Number of values in b
+     * @return Size of the intersection
+     */
+    public static int intersectionSize(int[] a, int aLength, int[] b, int bLength) {
+        if (aLength == 0 || bLength == 0) {
+            return 0;
+        }
+        if (aLength > bLength) {
+            return intersectionSize(b, bLength, a, aLength);
+        }
+        if (bLength / aLength >= GALLOP_RATIO) {
+            return gallopCount(a, aLength, b, bLength);
+        }
+        return mergeCount(a, aLength, b, bLength);
+    }
+
+    /** Counts common values by walking both arrays in step. */
+    static int mergeCount(int[] a, int aLength, int[] b, int bLength) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < aLength && j < bLength) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /** Counts common values by galloping through the longer array b for each value of a. */
+    static int gallopCount(int[] a, int aLength, int[] b, int bLength) {
+        int count = 0;
+        int lo = 0;
+        for (int i = 0; i < aLength && lo < bLength; i++) {
+            int value = a[i];
+            int step = 1;
+            int hi = lo;
+            while (hi < bLength && b[hi] < value) {
+                lo = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            int found = search(b, lo, Math.min(hi + 1, bLength), value);
+            if (found >= 0) {
+                count++;
+                lo = found + 1;
+            } else {
+                lo = -found - 1;
+            }
+        }
+        return count;
+    }
+}
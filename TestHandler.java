@@ -11,7 +11,7 @@ public class TestHandler {
                 return 8;
         
             case USER_ADD_FOLLOWEE:
-                return 5;
+                return 6;
 
             case USER_REMOVE_FOLLOWEE:
                 return 6;
@@ -20,7 +20,7 @@ public class TestHandler {
                 return 10;
             
             case USER_IS_FRIEND_OF:
-                return 6;
+                return 7;
             
             case NETWORK_GET_USER:
                 return 7;
@@ -32,12 +32,51 @@ public class TestHandler {
                 return 9;
 
             case NETWORK_RECOMMEND_WHO_TO_FOLLOW:
-                return 3;
+                return 5;
             
             case NETWORK_MOST_POPULAR_USER:
                 return 10;
 
             case NETWORK_TO_STRING:
+                return 7;
+
+            case ID_SET:
+                return 5;
+
+            case NETWORK_SAVE_LOAD:
+                return 4;
+
+            case NETWORK_LOAD_EDGE_LIST:
+                return 3;
+
+            case NETWORK_MUTATION_LOG:
+                return 5;
+
+            case CONCURRENT_NETWORK:
+                return 4;
+
+            case NETWORK_SNAPSHOT:
+                return 5;
+
+            case NETWORK_REMOVE_USER:
+                return 4;
+
+            case SHARDED_NETWORK:
+                return 4;
+
+            case NETWORK_TRIANGLES:
+                return 4;
+
+            case NETWORK_PATHS:
+                return 4;
+
+            case NETWORK_COMPONENTS:
+                return 3;
+
+            case NETWORK_RANDOM_WALKS:
+                return 4;
+
+            case NETWORK_PAGE_RANK:
                 return 4;
             default:
                 break;
@@ -79,6 +118,45 @@ public class TestHandler {
             
             case NETWORK_TO_STRING:
                 return networkToStringTests(testNumber);
+
+            case ID_SET:
+                return idSetTests(testNumber);
+
+            case NETWORK_SAVE_LOAD:
+                return networkSaveLoadTests(testNumber);
+
+            case NETWORK_LOAD_EDGE_LIST:
+                return networkLoadEdgeListTests(testNumber);
+
+            case NETWORK_MUTATION_LOG:
+                return networkMutationLogTests(testNumber);
+
+            case CONCURRENT_NETWORK:
+                return concurrentNetworkTests(testNumber);
+
+            case NETWORK_SNAPSHOT:
+                return networkSnapshotTests(testNumber);
+
+            case NETWORK_REMOVE_USER:
+                return networkRemoveUserTests(testNumber);
+
+            case SHARDED_NETWORK:
+                return shardedNetworkTests(testNumber);
+
+            case NETWORK_TRIANGLES:
+                return networkTrianglesTests(testNumber);
+
+            case NETWORK_PATHS:
+                return networkPathsTests(testNumber);
+
+            case NETWORK_COMPONENTS:
+                return networkComponentsTests(testNumber);
+
+            case NETWORK_RANDOM_WALKS:
+                return networkRandomWalksTests(testNumber);
+
+            case NETWORK_PAGE_RANK:
+                return networkPageRankTests(testNumber);
             default:
                 break;
         }
@@ -243,6 +321,8 @@ public class TestHandler {
                 return addFolloweeTest4();
             case 5:
                 return addFolloweeTest5();
+            case 6:
+                return addFolloweeTest6();
             default:
                 break;
         }
@@ -287,18 +367,18 @@ public class TestHandler {
 
     public boolean addFolloweeTest4(){
         User alice = new User("Alice");
-        String expected = "false";
+        String expected = "true";
         String actual = "";
         try {
             boolean result = true;
             for (int i = 0; i < 100; i++) {
                 result = alice.addFollowee("User " + (i + 1)) && result;
             }
-            actual += (result && alice.getfCount() == 10 && User.maxfCount == 10 && alice.getfFollows().length == 10);
+            actual += (result && alice.getfCount() == 100 && alice.getfFollows().length == 100);
         } catch (Exception e) {
             actual = TesterMessagesEnum.ERROR + e.getMessage();
         }
-        return this.tester.test("Alice, add 100 users, followee count is still 10", expected, actual);
+        return this.tester.test("Alice, add 100 users, followee count is 100", expected, actual);
     }
 
     public boolean addFolloweeTest5(){
@@ -313,6 +393,18 @@ public class TestHandler {
         return this.tester.test("Alice, getting started = false, try to add Followee Foo and foo", expected, actual);
     }
 
+    public boolean addFolloweeTest6(){
+        User alice = new User("Alice");
+        String expected = "false false 0 Alice -> ";
+        String actual = "";
+        try {
+            actual += alice.addFollowee(-1) + " " + alice.addFollowee(123456) + " " + alice.getfCount() + " " + alice;
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Alice, add followee ids -1 and 123456, which name no user", expected, actual);
+    }
+
     // Improved removeFollowee Tests
     public void mainRemoveFolloweeTest() {
         this.tester.reset(TesterQuestionEnum.USER_REMOVE_FOLLOWEE);
@@ -446,6 +538,8 @@ public class TestHandler {
                 return isFriendOfTest5();
             case 6:
                 return isFriendOfTest6();
+            case 7:
+                return isFriendOfTest7();
             default:
                 return false;
         }
@@ -537,6 +631,25 @@ public class TestHandler {
         return this.tester.test("Friendship test with removed user", expected, actual);
     }
 
+    public boolean isFriendOfTest7() {
+        String expected = "false false 0 [] false [Bob]";
+        String actual = "";
+        try {
+            Network network = new Network();
+            network.addUser("Alice");
+            network.addUser("Bob");
+            User alice = network.getUser("Alice");
+            actual += alice.addFollowee(alice.getId()) + " " + alice.addFollowee("alice") + " ";
+            actual += alice.getfCount() + " " + java.util.Arrays.toString(network.friendsOf("Alice")) + " ";
+            network.addFollowee("Alice", "Bob");
+            network.addFollowee("Bob", "Alice");
+            actual += alice.isFriendOf(alice) + " " + java.util.Arrays.toString(network.friendsOf("Alice"));
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("A network member cannot follow itself or be its own friend", expected, actual);
+    }
+
     public void mainCountMutualTest() {
         this.tester.reset(TesterQuestionEnum.USER_COUNT_MUTUAL);
         boolean passed = runAllTests(TesterQuestionEnum.USER_COUNT_MUTUAL);
@@ -663,7 +776,7 @@ public class TestHandler {
             alice.addFollowee("User" + i);
             bob.addFollowee("User" + i);
         }
-        String expected = "10";
+        String expected = "100";
         String actual = "";
         try {
             actual += alice.countMutual(bob);
@@ -1103,6 +1216,8 @@ public class TestHandler {
             case 1: return recommendWhoToFollowTest1();
             case 2: return recommendWhoToFollowTest2();
             case 3: return recommendWhoToFollowTest3();
+            case 4: return recommendWhoToFollowTest4();
+            case 5: return recommendWhoToFollowTest5();
             default: return false;
         }
     }
@@ -1190,6 +1305,68 @@ public class TestHandler {
 
         return this.tester.test("Recommend Eve to Alice", expected, actual);
     }
+
+    public boolean recommendWhoToFollowTest4() {
+        String expected = "[Carol, Dan] [Carol, Dan] []";
+        String actual = "";
+        try {
+            Network network = new Network();
+            network.addUser("Alice");
+            network.addUser("Bob");
+            network.addUser("Carol");
+            network.addUser("Dan");
+            network.addFollowee("Alice", "Bob");
+            network.addFollowee("Carol", "Bob");
+            actual += java.util.Arrays.toString(network.recommendWhoToFollow("Alice", Integer.MAX_VALUE)) + " ";
+            actual += java.util.Arrays.toString(network.recommendWhoToFollow("Alice", Integer.MAX_VALUE, RecommendationScore.JACCARD)) + " ";
+            actual += java.util.Arrays.toString(network.recommendWhoToFollow("Alice", -1));
+        } catch (Throwable e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Asking for Integer.MAX_VALUE recommendations returns every candidate", expected, actual);
+    }
+
+    public boolean recommendWhoToFollowTest5() {
+        // Followers: Celeb 34, Hub 4, Niche 2, so one shared followee weighs 0.28, 0.72 and 1.44 in ADAMIC_ADAR.
+        // Ann, Cid and Dee share Celeb and Hub with Me out of 2, 12 and 5 followees; each fan shares
+        // Celeb out of 1, and Ben shares Niche out of 1. In JACCARD Dee's 2/6 ties the fans' and Ben's 1/3.
+        String expected = "[Ann, Cid, Dee, Fan0, Fan1] [Ben, Ann, Cid, Dee, Fan0] [Ann, Dee, Fan0, Fan1, Fan2] Cid";
+        String actual = "";
+        try {
+            Network network = new Network();
+            String[] names = {"Me", "Celeb", "Niche", "Hub", "Ann", "Cid", "Dee"};
+            for (String name : names) {
+                network.addUser(name);
+            }
+            for (int i = 0; i < 30; i++) {
+                network.addUser("Fan" + i);
+                network.addFollowee("Fan" + i, "Celeb");
+            }
+            network.addUser("Ben");
+            network.addFollowee("Me", "Celeb");
+            network.addFollowee("Me", "Niche");
+            network.addFollowee("Me", "Hub");
+            network.addFollowee("Ben", "Niche");
+            for (String name : new String[] {"Ann", "Cid", "Dee"}) {
+                network.addFollowee(name, "Celeb");
+                network.addFollowee(name, "Hub");
+            }
+            for (int i = 0; i < 10; i++) {
+                network.addFollowee("Cid", "Fan" + i);
+            }
+            for (int i = 0; i < 3; i++) {
+                network.addFollowee("Dee", "Fan" + i);
+            }
+            String[] all = network.recommendWhoToFollow("Me", Integer.MAX_VALUE, RecommendationScore.JACCARD);
+            actual += java.util.Arrays.toString(network.recommendWhoToFollow("Me", 5, RecommendationScore.MUTUAL)) + " "
+                    + java.util.Arrays.toString(network.recommendWhoToFollow("Me", 5, RecommendationScore.ADAMIC_ADAR)) + " "
+                    + java.util.Arrays.toString(network.recommendWhoToFollow("Me", 5, RecommendationScore.JACCARD)) + " "
+                    + all[all.length - 1];
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Rank by shared followees, by JACCARD and by ADAMIC_ADAR, where a niche followee outweighs a celebrity", expected, actual);
+    }
     
 
     public void mainNetworkMostPopularUserTest() {
@@ -1395,6 +1572,9 @@ public class TestHandler {
             case 2: return toStringTest2();
             case 3: return toStringTest3();
             case 4: return toStringTest4();
+            case 5: return toStringTest5();
+            case 6: return toStringTest6();
+            case 7: return toStringTest7();
             default: return false;
         }
     }
@@ -1452,44 +1632,2446 @@ public class TestHandler {
         return this.tester.test("Network with added users and follow relationships", expected, actual);
     }
 
-    public void conclusion() {
-        this.tester.conclusion();
+    public boolean toStringTest5() {
+        Network network = new Network(5);
+        network.addUser("Neta");
+        network.addUser("Or");
+        network.addUser("Zohar");
+        network.addUser("Idan");
+        network.addFollowee("Idan", "Or");
+        network.addFollowee("Idan", "Zohar");
+        network.addFollowee("Idan", "Neta");
+        String expected = "Idan -> Or Zohar Neta |Idan -> Or Neta Zohar ";
+        String actual = "";
+        try {
+            actual += network.getUser("Idan") + "|";
+            network.unfollow("Idan", "Zohar");
+            network.addFollowee("Idan", "Zohar");
+            actual += network.getUser("Idan");
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Followees listed in the order they were followed, before and after an unfollow", expected, actual);
     }
 
-    public void questionDecider(TesterQuestionEnum question, String[] args) {
-        switch (question) {
-            case USER_FOLLOWS:
-                this.mainTestUserFollow();
-                break;
-            case USER_ADD_FOLLOWEE:
-                this.mainAddFolloweeTest();
-                break;
-            case USER_REMOVE_FOLLOWEE:
-                this.mainRemoveFolloweeTest();
-                break;
-            case USER_COUNT_MUTUAL:
-                this.mainCountMutualTest();
-                break;
-            case USER_IS_FRIEND_OF:
-                this.mainIsFriendOfTest();
-                break;
-            case NETWORK_GET_USER:
-                this.mainNetworkGetUserTest();
-                break;
-            case NETWORK_ADD_USER:
-                this.mainNetworkAddUserTest();
-                break;
-            case NETWORK_ADD_FOLLOWEE:
-                this.mainNetworkAddFolloweeTest();
-                break;
-            case NETWORK_RECOMMEND_WHO_TO_FOLLOW:
-                this.mainNetworkRecommendWhoToFollowTest();
-                break;
-            case NETWORK_MOST_POPULAR_USER:
-                this.mainNetworkMostPopularUserTest();
-                break;
-            case NETWORK_TO_STRING:
-                this.mainNetworkToStringTest();
+    public boolean toStringTest6() {
+        Network network = new Network();
+        network.addUser("Alice");
+        for (int i = 1; i <= 200; i++) {
+            network.addUser("User" + i);
+        }
+        for (int i = 200; i >= 1; i--) {
+            network.addFollowee("Alice", "User" + i);
+        }
+        String expected = "User200 User199 User1";
+        String actual = "";
+        try {
+            String[] followees = network.getUser("Alice").getfFollows();
+            actual += followees[0] + " " + followees[1] + " " + followees[followees.length - 1];
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Alice follows 200 users in reverse order, followees keep that order", expected, actual);
+    }
+
+    public boolean toStringTest7() {
+        String expected = "";
+        String actual = "";
+        try {
+            Network network = new Network();
+            // Names mix 1-, 2-, 3- and 4-byte UTF-8 characters, so surrogate pairs land on every buffer offset
+            String[] parts = {"User", "\u05D3\u05E0\u05D4", "\u4E16\u754C", "\uD83D\uDE00", "\uD834\uDD1E"};
+            int n = 3000;
+            for (int i = 0; i < n; i++) {
+                network.addUser(parts[i % parts.length] + i + parts[(i / 5) % parts.length]);
+            }
+            java.util.Random random = new java.util.Random(11);
+            for (int i = 0; i < 4 * n; i++) {
+                int a = random.nextInt(n);
+                int b = random.nextInt(n);
+                network.addFollowee(parts[a % parts.length] + a + parts[(a / 5) % parts.length],
+                        parts[b % parts.length] + b + parts[(b / 5) % parts.length]);
+            }
+            String text = network.toString();
+            java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+            // A channel that takes at most 1000 bytes per write, as a socket may
+            java.nio.channels.WritableByteChannel sink = java.nio.channels.Channels.newChannel(bytes);
+            java.nio.channels.WritableByteChannel channel = new java.nio.channels.WritableByteChannel() {
+                public int write(java.nio.ByteBuffer source) throws java.io.IOException {
+                    java.nio.ByteBuffer part = source.duplicate();
+                    part.limit(part.position() + Math.min(part.remaining(), 1000));
+                    int written = sink.write(part);
+                    source.position(source.position() + written);
+                    return written;
+                }
+
+                public boolean isOpen() {
+                    return true;
+                }
+
+                public void close() {
+                }
+            };
+            network.writeTo(channel);
+            StringBuilder appended = new StringBuilder();
+            network.writeTo(appended);
+            java.io.ByteArrayOutputStream userBytes = new java.io.ByteArrayOutputStream();
+            User user = network.getUser(parts[3] + 3 + parts[0]);
+            user.writeTo(java.nio.channels.Channels.newChannel(userBytes));
+            expected = "true true true " + user.toString();
+            actual += (bytes.size() > 65536) + " " + appended.toString().equals(text) + " "
+                    + new String(bytes.toByteArray(), java.nio.charset.StandardCharsets.UTF_8).equals(text) + " "
+                    + new String(userBytes.toByteArray(), java.nio.charset.StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Channel output of a network over 64 KiB with non-BMP names equals toString", expected, actual);
+    }
+
+    public void mainIdSetTest() {
+        this.tester.reset(TesterQuestionEnum.ID_SET);
+        boolean passed = runAllTests(TesterQuestionEnum.ID_SET);
+        if (passed) {
+            this.tester.updatePoints();
+        }
+        System.out.println(tester);
+    }
+
+    public boolean idSetTests(int testNumber) {
+        switch (testNumber) {
+            case 1: return idSetTest1();
+            case 2: return idSetTest2();
+            case 3: return idSetTest3();
+            case 4: return idSetTest4();
+            case 5: return idSetTest5();
+            default: return false;
+        }
+    }
+
+    public boolean idSetTest1() {
+        IdSet set = new IdSet();
+        String expected = "true";
+        String actual = "";
+        try {
+            long start = System.nanoTime();
+            boolean result = true;
+            for (int i = 0; i < 200000; i++) {
+                result = set.add(i * 10007) && result;
+            }
+            for (int i = 0; i < 200000; i++) {
+                result = set.contains(i * 10007) && !set.contains(i * 10007 + 1) && result;
+            }
+            long millis = (System.nanoTime() - start) / 1000000;
+            actual += (result && set.size() == 200000 && millis < 5000);
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Add and find 200000 sparse ids within 5 seconds", expected, actual);
+    }
+
+    public boolean idSetTest2() {
+        IdSet set = new IdSet();
+        for (int i = 0; i < 100000; i++) {
+            set.add(i * 20011);
+        }
+        String expected = "50000 true";
+        String actual = "";
+        try {
+            boolean result = true;
+            for (int i = 0; i < 100000; i += 2) {
+                result = set.remove(i * 20011) && result;
+            }
+            for (int i = 0; i < 100000; i++) {
+                result = (set.contains(i * 20011) == (i % 2 == 1)) && result;
+            }
+            actual += set.size() + " " + result;
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Remove every other id of 100000 sparse ids", expected, actual);
+    }
+
+    public boolean idSetTest3() {
+        IdSet set = new IdSet();
+        for (int i = 0; i < 1000; i++) {
+            set.add(i * 1000003);
+        }
+        String expected = "true 0 1000003 2000006";
+        String actual = "";
+        try {
+            int[] sorted = set.toSortedArray();
+            actual += (sorted.length == 1000 && sorted[999] == 999 * 1000003) + " " + sorted[0] + " " + sorted[1] + " " + sorted[2];
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Sorted ids of a sparse hash set", expected, actual);
+    }
+
+    public boolean idSetTest4() {
+        IdSet a = new IdSet();
+        IdSet b = new IdSet();
+        for (int i = 0; i < 50000; i++) {
+            a.add(i * 30011);
+            b.add(i * 60022);
+        }
+        String expected = "25000";
+        String actual = "";
+        try {
+            actual += IdSet.intersectionSize(a, b);
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Intersection of two large sparse sets", expected, actual);
+    }
+
+    public boolean idSetTest5() {
+        String expected = "";
+        String actual = "";
+        try {
+            IdSet set = new IdSet(true);
+            java.util.LinkedHashSet<Integer> reference = new java.util.LinkedHashSet<>();
+            for (int i = 0; i < 200000; i++) {
+                int id = (int) ((i * 2654435761L) % 1000003);
+                set.add(id);
+                reference.add(id);
+            }
+            java.util.Random random = new java.util.Random(6);
+            for (int i = 0; i < 150000; i++) {
+                int id = (int) ((random.nextInt(200000) * 2654435761L) % 1000003);
+                if (random.nextInt(4) == 0) {
+                    // Removed and added again: the id moves to the end of the order
+                    set.remove(id);
+                    reference.remove(id);
+                    set.add(id);
+                    reference.add(id);
+                } else {
+                    set.remove(id);
+                    reference.remove(id);
+                }
+            }
+            StringBuilder want = new StringBuilder();
+            for (int id : reference) {
+                want.append(id).append(' ');
+            }
+            StringBuilder got = new StringBuilder();
+            for (int id : set.toOrderedArray()) {
+                got.append(id).append(' ');
+            }
+            expected = want.toString() + reference.size() + " true";
+            actual += got.toString() + set.size() + " " + (set.orderPositions() <= 2 * set.size());
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("A large set that keeps order lists its ids in order after many removals and re-adds", expected, actual);
+    }
+
+    public void mainNetworkSaveLoadTest() {
+        this.tester.reset(TesterQuestionEnum.NETWORK_SAVE_LOAD);
+        boolean passed = runAllTests(TesterQuestionEnum.NETWORK_SAVE_LOAD);
+        if (passed) {
+            this.tester.updatePoints();
+        }
+        System.out.println(tester);
+    }
+
+    public boolean networkSaveLoadTests(int testNumber) {
+        switch (testNumber) {
+            case 1: return saveLoadTest1();
+            case 2: return saveLoadTest2();
+            case 3: return saveLoadTest3();
+            case 4: return saveLoadTest4();
+            default: return false;
+        }
+    }
+
+    public boolean saveLoadTest1() {
+        Network network = new Network(50);
+        network.addUser("Neta");
+        network.addUser("Or");
+        network.addUser("Zohar");
+        network.addUser("Idan");
+        network.addFollowee("Idan", "Or");
+        network.addFollowee("Idan", "Zohar");
+        network.addFollowee("Idan", "Neta");
+        network.addFollowee("Or", "Idan");
+        String expected = network.toString() + " 50 Neta true";
+        String actual = "";
+        java.nio.file.Path path = null;
+        try {
+            path = java.nio.file.Files.createTempFile("network", ".bin");
+            network.save(path);
+            Network loaded = Network.load(path);
+            actual += loaded + " " + loaded.getMaxUserCount() + " " + loaded.mostPopularUser() + " " + loaded.getUser("Or").isFriendOf(loaded.getUser("Idan"));
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        } finally {
+            deleteQuietly(path);
+        }
+        return this.tester.test("Save and load a small network, followees keep their order", expected, actual);
+    }
+
+    public boolean saveLoadTest2() {
+        Network network = new Network(5);
+        String expected = "Network: 0";
+        String actual = "";
+        java.nio.file.Path path = null;
+        try {
+            path = java.nio.file.Files.createTempFile("network", ".bin");
+            network.save(path);
+            Network loaded = Network.load(path);
+            actual += loaded + " " + loaded.getUserCount();
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        } finally {
+            deleteQuietly(path);
+        }
+        return this.tester.test("Save and load an empty network", expected, actual);
+    }
+
+    public boolean saveLoadTest3() {
+        java.util.Random random = new java.util.Random(12);
+        Network network = new Network();
+        for (int i = 0; i < 2000; i++) {
+            network.addUser("User" + i);
+        }
+        for (int e = 0; e < 20000; e++) {
+            network.addFollowee("User" + random.nextInt(2000), "User" + random.nextInt(200));
+        }
+        String expected = "true true true";
+        String actual = "";
+        java.nio.file.Path path = null;
+        try {
+            path = java.nio.file.Files.createTempFile("network", ".bin");
+            network.save(path);
+            Network loaded = Network.load(path);
+            actual += network.toString().equals(loaded.toString()) + " "
+                    + java.util.Arrays.equals(network.topPopularUsers(10), loaded.topPopularUsers(10)) + " "
+                    + java.util.Arrays.equals(network.recommendWhoToFollow("User7", 5), loaded.recommendWhoToFollow("User7", 5));
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        } finally {
+            deleteQuietly(path);
+        }
+        return this.tester.test("Save and load 2000 users with 20000 random follows", expected, actual);
+    }
+
+    public boolean saveLoadTest4() {
+        String expected = "IOException";
+        String actual = "";
+        java.nio.file.Path path = null;
+        try {
+            path = java.nio.file.Files.createTempFile("network", ".bin");
+            java.nio.file.Files.write(path, new byte[] {1, 2, 3});
+            actual += Network.load(path);
+        } catch (java.io.IOException e) {
+            actual = "IOException";
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        } finally {
+            deleteQuietly(path);
+        }
+        return this.tester.test("Load a file that is not a snapshot", expected, actual);
+    }
+
+    /** Deletes a temporary file of a test, ignoring failures. */
+    private static void deleteQuietly(java.nio.file.Path path) {
+        try {
+            if (path != null) {
+                java.nio.file.Files.deleteIfExists(path);
+            }
+        } catch (java.io.IOException e) {
+            // Nothing to do: the file is in the temporary directory
+        }
+    }
+
+    public void mainNetworkLoadEdgeListTest() {
+        this.tester.reset(TesterQuestionEnum.NETWORK_LOAD_EDGE_LIST);
+        boolean passed = runAllTests(TesterQuestionEnum.NETWORK_LOAD_EDGE_LIST);
+        if (passed) {
+            this.tester.updatePoints();
+        }
+        System.out.println(tester);
+    }
+
+    public boolean networkLoadEdgeListTests(int testNumber) {
+        switch (testNumber) {
+            case 1: return loadEdgeListTest1();
+            case 2: return loadEdgeListTest2();
+            case 3: return loadEdgeListTest3();
+            default: return false;
+        }
+    }
+
+    public boolean loadEdgeListTest1() {
+        String text = "# follower followee\nAlice Bob\nbob,Carol\n\nAlice\tCarol\nAlice Bob\nCarol Carol\nDan\nCarol alice\n";
+        String expected = "Network:\nAlice -> Bob Carol \nBob -> Carol \nCarol -> Alice | 9 1 4 3";
+        String actual = "";
+        java.nio.file.Path path = null;
+        try {
+            path = java.nio.file.Files.createTempFile("edges", ".txt");
+            java.nio.file.Files.write(path, text.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            EdgeListLoader loader = new EdgeListLoader();
+            Network network = loader.load(path);
+            actual += network + "| " + loader.getLines() + " " + loader.getMalformedLines() + " " + loader.getEdges() + " " + loader.getUsers();
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        } finally {
+            deleteQuietly(path);
+        }
+        return this.tester.test("Load an edge list with comments, repeats, a self-follow and a malformed line", expected, actual);
+    }
+
+    public boolean loadEdgeListTest2() {
+        java.util.Random random = new java.util.Random(13);
+        StringBuilder text = new StringBuilder();
+        Network expectedNetwork = new Network();
+        for (int e = 0; e < 30000; e++) {
+            String follower = "User" + random.nextInt(3000);
+            String followee = "User" + random.nextInt(3000);
+            text.append(follower).append(' ').append(followee).append('\n');
+            expectedNetwork.addUser(follower);
+            expectedNetwork.addUser(followee);
+            expectedNetwork.addFollowee(follower, followee);
+        }
+        String expected = "true true";
+        String actual = "";
+        java.nio.file.Path path = null;
+        try {
+            path = java.nio.file.Files.createTempFile("edges", ".txt");
+            java.nio.file.Files.write(path, text.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            Network network = Network.loadEdgeList(path);
+            boolean same = network.getUserCount() == expectedNetwork.getUserCount();
+            for (int i = 0; i < 3000 && same; i++) {
+                User user = network.getUser("User" + i);
+                User other = expectedNetwork.getUser("User" + i);
+                same = (user == null) ? other == null : other != null && user.getfCount() == other.getfCount()
+                        && user.countMutual(other) == other.getfCount();
+            }
+            actual += same + " " + network.mostPopularUser().equals(expectedNetwork.mostPopularUser());
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        } finally {
+            deleteQuietly(path);
+        }
+        return this.tester.test("Load 30000 random edges, same follows as adding them one by one", expected, actual);
+    }
+
+    public boolean loadEdgeListTest3() {
+        String text = "b x\na c\na b\nb x\na c\nc a\n";
+        String expected = "";
+        String actual = "";
+        java.nio.file.Path path = null;
+        try {
+            Network expectedNetwork = new Network();
+            for (String line : text.split("\n")) {
+                String[] pair = line.split(" ");
+                expectedNetwork.addUser(pair[0]);
+                expectedNetwork.addUser(pair[1]);
+                expectedNetwork.addFollowee(pair[0], pair[1]);
+            }
+            expected = expectedNetwork.toString();
+            path = java.nio.file.Files.createTempFile("edges", ".txt");
+            java.nio.file.Files.write(path, text.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            actual += Network.loadEdgeList(path);
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        } finally {
+            deleteQuietly(path);
+        }
+        return this.tester.test("Load an edge list, followees kept in file order", expected, actual);
+    }
+
+    public void mainNetworkMutationLogTest() {
+        this.tester.reset(TesterQuestionEnum.NETWORK_MUTATION_LOG);
+        boolean passed = runAllTests(TesterQuestionEnum.NETWORK_MUTATION_LOG);
+        if (passed) {
+            this.tester.updatePoints();
+        }
+        System.out.println(tester);
+    }
+
+    public boolean networkMutationLogTests(int testNumber) {
+        switch (testNumber) {
+            case 1: return mutationLogTest1();
+            case 2: return mutationLogTest2();
+            case 3: return mutationLogTest3();
+            case 4: return mutationLogTest4();
+            case 5: return mutationLogTest5();
+            default: return false;
+        }
+    }
+
+    public boolean mutationLogTest1() {
+        String expected = "";
+        String actual = "";
+        java.nio.file.Path dir = null;
+        try {
+            dir = java.nio.file.Files.createTempDirectory("network");
+            java.nio.file.Path snapshot = dir.resolve("network.bin");
+            java.nio.file.Path logFile = dir.resolve("network.log");
+            Network network = Network.recover(snapshot, logFile);
+            network.addUser("Alice");
+            network.addUser("Bob");
+            network.addUser("Carol");
+            network.addUser("Dan");
+            network.addFollowee("Alice", "Carol");
+            network.addFollowee("Alice", "Bob");
+            network.addFollowee("Bob", "Alice");
+            network.addFollowee("Dan", "Alice");
+            network.unfollow("Alice", "Carol");
+            network.removeUser("Dan");
+            expected = network.toString();
+            // No sync or close, as when the process dies: every record must already be in the file
+            Network recovered = Network.recover(snapshot, logFile);
+            actual += recovered.toString();
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        } finally {
+            deleteTreeQuietly(dir);
+        }
+        return this.tester.test("Recover adds, follows, an unfollow and a removal from the log without a sync", expected, actual);
+    }
+
+    public boolean mutationLogTest2() {
+        String expected = "";
+        String actual = "";
+        java.nio.file.Path dir = null;
+        try {
+            dir = java.nio.file.Files.createTempDirectory("network");
+            java.nio.file.Path snapshot = dir.resolve("network.bin");
+            java.nio.file.Path logFile = dir.resolve("network.log");
+            Network network = Network.recover(snapshot, logFile);
+            for (int i = 0; i < 100; i++) {
+                network.addUser("User" + i);
+            }
+            network.checkpoint(snapshot);
+            java.util.Random random = new java.util.Random(14);
+            for (int i = 0; i < 700; i++) {
+                network.addFollowee("User" + random.nextInt(100), "User" + random.nextInt(100));
+            }
+            for (int i = 0; i < 50; i++) {
+                network.unfollow("User" + random.nextInt(100), "User" + random.nextInt(100));
+            }
+            network.removeUser("User5");
+            expected = network.toString() + " " + network.getUserCount();
+            Network recovered = Network.recover(snapshot, logFile);
+            actual += recovered.toString() + " " + recovered.getUserCount();
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        } finally {
+            deleteTreeQuietly(dir);
+        }
+        return this.tester.test("Recover a checkpoint plus 750 later mutations", expected, actual);
+    }
+
+    public boolean mutationLogTest3() {
+        String expected = "";
+        String actual = "";
+        java.nio.file.Path dir = null;
+        try {
+            dir = java.nio.file.Files.createTempDirectory("network");
+            java.nio.file.Path logFile = dir.resolve("network.log");
+            java.nio.file.Path snapshot = dir.resolve("network.bin");
+            Network network = new Network();
+            MutationLog log = new MutationLog(logFile);
+            network.attachLog(log);
+            network.addUser("Alice");
+            network.addUser("Bob");
+            network.addFollowee("Alice", "Bob");
+            log.sync();
+            expected = network.toString() + " " + java.nio.file.Files.size(logFile);
+            network.addFollowee("Bob", "Alice");
+            log.close();
+            // Cut the last record in half, as a crash in the middle of a write would
+            long size = java.nio.file.Files.size(logFile);
+            try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(logFile,
+                    java.nio.file.StandardOpenOption.WRITE)) {
+                channel.truncate(size - 5);
+            }
+            Network recovered = Network.recover(snapshot, logFile);
+            actual += recovered.toString() + " " + java.nio.file.Files.size(logFile);
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        } finally {
+            deleteTreeQuietly(dir);
+        }
+        return this.tester.test("Recover a log whose last record is torn: the record is dropped and cut off", expected, actual);
+    }
+
+    public boolean mutationLogTest4() {
+        String expected = "Network:\nAlice -> \nBob -> ";
+        String actual = "";
+        java.nio.file.Path dir = null;
+        try {
+            dir = java.nio.file.Files.createTempDirectory("network");
+            java.nio.file.Path logFile = dir.resolve("network.log");
+            java.nio.file.Path snapshot = dir.resolve("network.bin");
+            Network network = new Network();
+            MutationLog log = new MutationLog(logFile);
+            network.attachLog(log);
+            network.addUser("Alice");
+            network.addUser("Bob");
+            long valid = java.nio.file.Files.size(logFile);
+            network.addFollowee("Alice", "Bob");
+            network.addFollowee("Bob", "Alice");
+            log.close();
+            // Flip a byte inside the first follow record: it and everything after it fail the checksum
+            try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(logFile,
+                    java.nio.file.StandardOpenOption.WRITE)) {
+                channel.write(java.nio.ByteBuffer.wrap(new byte[] {(byte) 0xFF}), valid + 12);
+            }
+            actual += Network.recover(snapshot, logFile);
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        } finally {
+            deleteTreeQuietly(dir);
+        }
+        return this.tester.test("Recover a log with a damaged record: replay stops before it", expected, actual);
+    }
+
+    public boolean mutationLogTest5() {
+        String expected = "1 true";
+        String actual = "";
+        java.nio.file.Path dir = null;
+        try {
+            dir = java.nio.file.Files.createTempDirectory("network");
+            MutationLog log = new MutationLog(dir.resolve("network.log"), 1000, 10);
+            Network network = new Network();
+            network.attachLog(log);
+            network.addUser("Alice");
+            actual += log.getUnforced();
+            long deadline = System.nanoTime() + 5000000000L;
+            while (log.getUnforced() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            actual += " " + (log.getUnforced() == 0 && log.getForces() == 1);
+            log.close();
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        } finally {
+            deleteTreeQuietly(dir);
+        }
+        return this.tester.test("A lone record is forced within the maximum delay, without a sync", expected, actual);
+    }
+
+    /** Deletes a temporary directory of a test and the files in it, ignoring failures. */
+    private static void deleteTreeQuietly(java.nio.file.Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (java.util.stream.Stream<java.nio.file.Path> files = java.nio.file.Files.list(dir)) {
+            files.forEach(TestHandler::deleteQuietly);
+        } catch (java.io.IOException e) {
+            // Nothing to do: the directory is in the temporary directory
+        }
+        deleteQuietly(dir);
+    }
+
+    public void mainConcurrentNetworkTest() {
+        this.tester.reset(TesterQuestionEnum.CONCURRENT_NETWORK);
+        boolean passed = runAllTests(TesterQuestionEnum.CONCURRENT_NETWORK);
+        if (passed) {
+            this.tester.updatePoints();
+        }
+        System.out.println(tester);
+    }
+
+    public boolean concurrentNetworkTests(int testNumber) {
+        switch (testNumber) {
+            case 1: return concurrentNetworkTest1();
+            case 2: return concurrentNetworkTest2();
+            case 3: return concurrentNetworkTest3();
+            case 4: return concurrentNetworkTest4();
+            default: return false;
+        }
+    }
+
+    public boolean concurrentNetworkTest1() {
+        String expected = "Network:\nAlice -> Carol Bob \nBob -> Alice \nCarol ->  2 1 0";
+        String actual = "";
+        try {
+            ConcurrentNetwork network = new ConcurrentNetwork();
+            network.addUser("Alice");
+            network.addUser("Bob");
+            network.addUser("Carol");
+            network.addFollowee("Alice", "Dan");
+            network.addFollowee("Alice", "Carol");
+            network.addFollowee("Alice", "Bob");
+            network.addFollowee("Bob", "Alice");
+            network.addFollowee("Bob", "Carol");
+            network.removeFollowee("Bob", "Carol");
+            actual += network.toString() + " " + network.getfCount("Alice") + " " + network.getfCount("Bob")
+                    + " " + network.countMutual("Alice", "Bob");
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Followees listed in the order they were followed", expected, actual);
+    }
+
+    public boolean concurrentNetworkTest2() {
+        String expected = "";
+        String actual = "";
+        try {
+            ConcurrentNetwork network = new ConcurrentNetwork();
+            java.util.TreeSet<Integer> reference = new java.util.TreeSet<>();
+            network.addUser("Hub");
+            for (int i = 0; i < 2000; i++) {
+                network.addUser("User" + i);
+            }
+            java.util.Random random = new java.util.Random(15);
+            for (int i = 0; i < 20000; i++) {
+                int id = random.nextInt(2000);
+                boolean changed;
+                boolean expectedChange;
+                if (random.nextInt(3) > 0) {
+                    changed = network.addFollowee("Hub", "User" + id);
+                    expectedChange = reference.add(id);
+                } else {
+                    changed = network.removeFollowee("Hub", "User" + id);
+                    expectedChange = reference.remove(id);
+                }
+                if (changed != expectedChange) {
+                    expected += i + " ";
+                }
+            }
+            for (int i = 0; i < 2000; i++) {
+                if (network.follows("Hub", "User" + i) != reference.contains(i)) {
+                    expected += "User" + i + " ";
+                }
+            }
+            expected += reference.size();
+            actual += network.getfCount("Hub");
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("A hub follows and unfollows thousands of users, matching a reference set", expected, actual);
+    }
+
+    public boolean concurrentNetworkTest3() {
+        String expected = "20000 1 Hub 0 true";
+        String actual = "";
+        try {
+            ConcurrentNetwork network = new ConcurrentNetwork();
+            network.addUser("Hub");
+            for (int i = 0; i < 20000; i++) {
+                network.addUser("User" + i);
+            }
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                final int first = t;
+                threads[t] = new Thread(() -> {
+                    for (int i = first; i < 20000; i += threads.length) {
+                        network.addFollowee("Hub", "User" + i);
+                        network.addFollowee("User" + i, "Hub");
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            boolean all = true;
+            for (int i = 0; i < 20000; i++) {
+                all &= network.isFriendOf("Hub", "User" + i);
+            }
+            actual += network.getfCount("Hub") + " " + network.countMutual("User0", "User1") + " "
+                    + network.mostPopularUser() + " " + network.getfCount("Nobody") + " " + all;
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Four threads make a hub and 20000 users follow each other at once", expected, actual);
+    }
+
+    public boolean concurrentNetworkTest4() {
+        String expected = "";
+        String actual = "";
+        try {
+            // The followees 1..130 fill two chunks of 65; unfollowing from the top empties the
+            // second chunk while the first one is still too full to merge with it
+            ConcurrentNetwork network = new ConcurrentNetwork();
+            network.addUser("Hub");
+            for (int i = 1; i <= 130; i++) {
+                network.addUser("User" + i);
+            }
+            for (int i = 2; i <= 130; i++) {
+                network.addFollowee("Hub", "User" + i);
+            }
+            network.addFollowee("Hub", "User1");
+            for (int i = 130; i >= 1; i--) {
+                expected += "true " + (i - 1) + " false ";
+                actual += network.removeFollowee("Hub", "User" + i) + " " + network.getfCount("Hub") + " "
+                        + network.follows("Hub", "User" + i) + " ";
+            }
+            expected += "Network:\nHub -> User7 \n";
+            network.addFollowee("Hub", "User7");
+            actual += network.toString().substring(0, network.toString().indexOf("User1 ->"));
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Unfollow the last followee of a chunk next to a full chunk", expected, actual);
+    }
+
+    public void mainNetworkSnapshotTest() {
+        this.tester.reset(TesterQuestionEnum.NETWORK_SNAPSHOT);
+        boolean passed = runAllTests(TesterQuestionEnum.NETWORK_SNAPSHOT);
+        if (passed) {
+            this.tester.updatePoints();
+        }
+        System.out.println(tester);
+    }
+
+    public boolean networkSnapshotTests(int testNumber) {
+        switch (testNumber) {
+            case 1: return snapshotTest1();
+            case 2: return snapshotTest2();
+            case 3: return snapshotTest3();
+            case 4: return snapshotTest4();
+            case 5: return snapshotTest5();
+            default: return false;
+        }
+    }
+
+    public boolean snapshotTest1() {
+        String expected = "";
+        String actual = "";
+        try {
+            Network network = new Network();
+            network.addUser("Alice");
+            network.addUser("Bob");
+            network.addUser("Carol");
+            network.addUser("Dan");
+            network.addFollowee("Alice", "Bob");
+            network.addFollowee("Alice", "Carol");
+            network.addFollowee("Bob", "Alice");
+            network.addFollowee("Carol", "Bob");
+            network.addFollowee("Dan", "Bob");
+            expected = network.toString() + " " + network.getUserCount() + " " + network.mostPopularUser();
+            NetworkSnapshot snapshot = network.snapshot();
+            network.addFollowee("Alice", "Dan");
+            network.unfollow("Alice", "Bob");
+            network.addFollowee("Bob", "Carol");
+            network.addFollowee("Dan", "Carol");
+            network.addFollowee("Bob", "Dan");
+            network.addFollowee("Alice", "Carol");
+            network.addFollowee("Carol", "Dan");
+            actual += snapshot.toString() + " " + snapshot.getUserCount() + " " + snapshot.mostPopularUser();
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("A snapshot keeps its follows and most popular user after later follows and unfollows", expected, actual);
+    }
+
+    public boolean snapshotTest2() {
+        String expected = "Network:\nAlice -> Bob \nBob -> Alice \nCarol -> Bob  3 Carol null true false 1";
+        String actual = "";
+        try {
+            Network network = new Network();
+            network.addUser("Alice");
+            network.addUser("Bob");
+            network.addUser("Carol");
+            network.addFollowee("Alice", "Bob");
+            network.addFollowee("Bob", "Alice");
+            network.addFollowee("Carol", "Bob");
+            NetworkSnapshot snapshot = network.snapshot();
+            network.removeUser("Carol");
+            network.addUser("Erin");
+            network.addFollowee("Erin", "Alice");
+            network.removeUser("Bob");
+            actual += snapshot.toString() + " " + snapshot.getUserCount() + " " + snapshot.getUser("carol") + " "
+                    + snapshot.getUser("Erin") + " " + snapshot.follows("Alice", "Bob") + " "
+                    + snapshot.follows("Erin", "Alice") + " " + snapshot.countMutual("Alice", "Carol");
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("A snapshot keeps removed users, and does not see a user added in a reused slot", expected, actual);
+    }
+
+    public boolean snapshotTest3() {
+        String expected = "";
+        String actual = "";
+        try {
+            Network network = new Network();
+            for (int i = 0; i < 3000; i++) {
+                network.addUser("User" + i);
+            }
+            java.util.Random random = new java.util.Random(16);
+            for (int i = 0; i < 9000; i++) {
+                network.addFollowee("User" + random.nextInt(3000), "User" + random.nextInt(3000));
+            }
+            String first = network.toString();
+            NetworkSnapshot older = network.snapshot();
+            for (int i = 0; i < 9000; i++) {
+                network.addFollowee("User" + random.nextInt(3000), "User" + random.nextInt(3000));
+                network.unfollow("User" + random.nextInt(3000), "User" + random.nextInt(3000));
+            }
+            for (int i = 0; i < 300; i++) {
+                network.removeUser("User" + random.nextInt(3000));
+            }
+            String second = network.toString();
+            NetworkSnapshot newer = network.snapshot();
+            for (int i = 0; i < 9000; i++) {
+                network.addFollowee("User" + random.nextInt(3000), "User" + random.nextInt(3000));
+            }
+            network.addUser("Late");
+            expected = first + "|" + second;
+            actual += older.toString() + "|" + newer.toString();
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Two snapshots of 3000 users each keep their own version through thousands of later changes", expected, actual);
+    }
+
+    public boolean snapshotTest4() {
+        String expected = "0";
+        String actual = "";
+        try {
+            Network network = new Network();
+            for (int i = 0; i < 500; i++) {
+                network.addUser("User" + i);
+            }
+            java.util.Random random = new java.util.Random(160);
+            for (int i = 0; i < 2000; i++) {
+                network.addFollowee("User" + random.nextInt(500), "User" + random.nextInt(500));
+            }
+            String frozen = network.toString();
+            NetworkSnapshot snapshot = network.snapshot();
+            java.util.concurrent.atomic.AtomicInteger mismatches = new java.util.concurrent.atomic.AtomicInteger();
+            java.util.concurrent.atomic.AtomicBoolean writing = new java.util.concurrent.atomic.AtomicBoolean(true);
+            Thread reader = new Thread(() -> {
+                do {
+                    if (!snapshot.toString().equals(frozen)) {
+                        mismatches.incrementAndGet();
+                    }
+                } while (writing.get());
+            });
+            reader.start();
+            for (int i = 0; i < 20000; i++) {
+                network.addFollowee("User" + random.nextInt(500), "User" + random.nextInt(500));
+                network.unfollow("User" + random.nextInt(500), "User" + random.nextInt(500));
+            }
+            writing.set(false);
+            reader.join();
+            actual += mismatches.get();
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Another thread reading a snapshot while the network changes always sees the same text", expected, actual);
+    }
+
+    public boolean snapshotTest5() {
+        String expected = "";
+        String actual = "";
+        try {
+            Network network = new Network();
+            network.addUser("Alice");
+            network.addUser("Bob");
+            network.addUser("Carol");
+            network.addUser("Dan");
+            network.addFollowee("Alice", "Bob");
+            network.addFollowee("Carol", "Bob");
+            network.addFollowee("Carol", "Dan");
+            NetworkSnapshot snapshot = network.snapshot();
+            expected = java.util.Arrays.toString(network.recommendWhoToFollow("Alice", Integer.MAX_VALUE));
+            actual += java.util.Arrays.toString(snapshot.recommendWhoToFollow("Alice", Integer.MAX_VALUE));
+        } catch (Throwable e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Recommend Integer.MAX_VALUE users from a snapshot, every other user", expected, actual);
+    }
+
+    public void mainNetworkRemoveUserTest() {
+        this.tester.reset(TesterQuestionEnum.NETWORK_REMOVE_USER);
+        boolean passed = runAllTests(TesterQuestionEnum.NETWORK_REMOVE_USER);
+        if (passed) {
+            this.tester.updatePoints();
+        }
+        System.out.println(tester);
+    }
+
+    public boolean networkRemoveUserTests(int testNumber) {
+        switch (testNumber) {
+            case 1: return removeUserTest1();
+            case 2: return removeUserTest2();
+            case 3: return removeUserTest3();
+            case 4: return removeUserTest4();
+            default: return false;
+        }
+    }
+
+    public boolean removeUserTest1() {
+        String expected = "true [] [] 0 Carol [Carol, Alice] 3 false";
+        String actual = "";
+        try {
+            Network network = new Network();
+            network.addUser("Alice");
+            network.addUser("Bob");
+            network.addUser("Carol");
+            network.addUser("Dan");
+            network.addFollowee("Alice", "Bob");
+            network.addFollowee("Bob", "Alice");
+            network.addFollowee("Carol", "Bob");
+            network.addFollowee("Bob", "Carol");
+            network.addFollowee("Dan", "Bob");
+            network.addFollowee("Dan", "Carol");
+            network.addFollowee("Alice", "Carol");
+            network.addFollowee("Carol", "Alice");
+            actual += network.removeUser("bob") + " ";
+            actual += java.util.Arrays.toString(network.getUser("Dan").getfFollows()).replace("Carol", "") + " ";
+            actual += java.util.Arrays.toString(network.friendsOf("Alice")).replace("Carol", "") + " ";
+            actual += network.followerCountOf(network.getUser("Dan").getId()) + " ";
+            actual += network.mostPopularUser() + " " + java.util.Arrays.toString(network.topPopularUsers(2)) + " ";
+            actual += network.getUserCount() + " " + network.getUser("Alice").follows("Bob");
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Removing the hub drops it from its followers' followees, the friends index and the ranking", expected, actual);
+    }
+
+    public boolean removeUserTest2() {
+        String expected = "true 0 0 [] [] Alice [Alice, Erin, Carol] [Alice] 1";
+        String actual = "";
+        try {
+            Network network = new Network();
+            network.addUser("Alice");
+            network.addUser("Bob");
+            network.addUser("Carol");
+            network.addFollowee("Alice", "Bob");
+            network.addFollowee("Bob", "Alice");
+            network.addFollowee("Carol", "Bob");
+            network.addFollowee("Carol", "Alice");
+            int slot = network.getUser("Bob").getId();
+            network.removeUser("Bob");
+            network.addUser("Erin");
+            User erin = network.getUser("Erin");
+            actual += (erin.getId() == slot) + " " + network.followerCountOf(slot) + " " + erin.getfCount() + " ";
+            actual += java.util.Arrays.toString(network.friendsOf("Erin")) + " " + java.util.Arrays.toString(network.friendsOf("Alice")) + " ";
+            network.addFollowee("Erin", "Alice");
+            actual += network.mostPopularUser() + " " + java.util.Arrays.toString(network.topPopularUsers(3)) + " ";
+            network.addFollowee("Alice", "Erin");
+            actual += java.util.Arrays.toString(network.friendsOf("Erin")) + " " + network.getUser("Carol").countMutual(erin);
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("A user added in a removed user's slot starts with no followers, friends or rank", expected, actual);
+    }
+
+    public boolean removeUserTest3() {
+        String expected = "";
+        String actual = "";
+        try {
+            Network network = new Network();
+            int n = 400;
+            for (int i = 0; i < n; i++) {
+                network.addUser("User" + i);
+            }
+            java.util.Random random = new java.util.Random(17);
+            for (int i = 0; i < 4000; i++) {
+                network.addFollowee("User" + random.nextInt(n), "User" + random.nextInt(n));
+            }
+            boolean[] removed = new boolean[n];
+            for (int i = 0; i < 120; i++) {
+                int r = random.nextInt(n);
+                removed[r] |= network.removeUser("User" + r);
+            }
+            // Reference answers from the followee lists of the users still in the network
+            boolean[][] follows = new boolean[n][n];
+            int[] followers = new int[n];
+            for (int i = 0; i < n; i++) {
+                if (!removed[i]) {
+                    for (String f : network.getUser("User" + i).getfFollows()) {
+                        int j = Integer.parseInt(f.substring(4));
+                        if (removed[j]) {
+                            actual += "User" + i + " still follows " + f + " ";
+                        }
+                        follows[i][j] = true;
+                        followers[j]++;
+                    }
+                }
+            }
+            StringBuilder friends = new StringBuilder();
+            StringBuilder actualFriends = new StringBuilder();
+            StringBuilder counts = new StringBuilder();
+            StringBuilder actualCounts = new StringBuilder();
+            Integer[] order = new Integer[n];
+            int kept = 0;
+            for (int i = 0; i < n; i++) {
+                if (removed[i]) {
+                    continue;
+                }
+                order[kept++] = i;
+                friends.append(i).append(':');
+                for (int j = 0; j < n; j++) {
+                    if (follows[i][j] && follows[j][i]) {
+                        friends.append(j).append(',');
+                    }
+                }
+                actualFriends.append(i).append(':');
+                String[] names = network.friendsOf("User" + i);
+                int[] ids = new int[names.length];
+                for (int f = 0; f < names.length; f++) {
+                    ids[f] = Integer.parseInt(names[f].substring(4));
+                }
+                java.util.Arrays.sort(ids);
+                for (int id : ids) {
+                    actualFriends.append(id).append(',');
+                }
+                counts.append(followers[i]).append(' ');
+                actualCounts.append(network.followerCountOf(network.getUser("User" + i).getId())).append(' ');
+            }
+            Integer[] ranked = java.util.Arrays.copyOf(order, kept);
+            java.util.Arrays.sort(ranked, (a, b) -> (followers[a] != followers[b]) ? followers[b] - followers[a] : a - b);
+            StringBuilder top = new StringBuilder();
+            for (int i = 0; i < 10; i++) {
+                top.append("User").append(ranked[i]).append(' ');
+            }
+            expected = friends + " " + counts + " " + top + kept;
+            actual += actualFriends + " " + actualCounts + " " + String.join(" ", network.topPopularUsers(10)) + " " + network.getUserCount();
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("After removing random users, follower counts, friends and the top 10 match a naive reference", expected, actual);
+    }
+
+    public boolean removeUserTest4() {
+        String expected = "true true 1 [] true 100001";
+        String actual = "";
+        try {
+            Network network = new Network();
+            network.addUser("Hub");
+            for (int i = 0; i < 100000; i++) {
+                network.addUser("User" + i);
+                network.addFollowee("User" + i, "Hub");
+                network.addFollowee("User" + i, "User" + (i / 2));
+            }
+            network.addFollowee("Hub", "User7");
+            NetworkSnapshot snapshot = network.snapshot();
+            long start = System.nanoTime();
+            boolean removed = network.removeUser("Hub");
+            long millis = (System.nanoTime() - start) / 1000000;
+            actual += removed + " " + (millis < 2000) + " ";
+            actual += network.getUser("User9").getfCount() + " " + java.util.Arrays.toString(network.friendsOf("User7")) + " ";
+            actual += snapshot.follows("User9", "Hub") + " " + snapshot.getUserCount();
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Remove a user followed by 100000 users within 2 seconds", expected, actual);
+    }
+
+    public void mainShardedNetworkTest() {
+        this.tester.reset(TesterQuestionEnum.SHARDED_NETWORK);
+        boolean passed = runAllTests(TesterQuestionEnum.SHARDED_NETWORK);
+        if (passed) {
+            this.tester.updatePoints();
+        }
+        System.out.println(tester);
+    }
+
+    public boolean shardedNetworkTests(int testNumber) {
+        switch (testNumber) {
+            case 1: return shardedNetworkTest1();
+            case 2: return shardedNetworkTest2();
+            case 3: return shardedNetworkTest3();
+            case 4: return shardedNetworkTest4();
+            default: return false;
+        }
+    }
+
+    public boolean shardedNetworkTest1() {
+        String expected = "";
+        String actual = "";
+        try (ShardedNetwork sharded = new ShardedNetwork(1)) {
+            Network network = new Network();
+            StringBuilder want = new StringBuilder();
+            StringBuilder got = new StringBuilder();
+            java.util.Random random = new java.util.Random(18);
+            for (int i = 0; i < 60; i++) {
+                String name = (random.nextInt(10) == 0) ? "user" + random.nextInt(i + 1) : "User" + i;
+                want.append(network.addUser(name) ? 'T' : 'F');
+                got.append(sharded.addUser(name) ? 'T' : 'F');
+            }
+            for (int i = 0; i < 300; i++) {
+                String name1 = "User" + random.nextInt(60 + 10);
+                String name2 = "User" + random.nextInt(60 + 10);
+                want.append(network.addFollowee(name1, name2) ? 'T' : 'F');
+                got.append(sharded.addFollowee(name1, name2) ? 'T' : 'F');
+            }
+            want.append(' ').append(network.getUserCount()).append(' ').append(network.mostPopularUser()).append('\n').append(network);
+            got.append(' ').append(sharded.getUserCount()).append(' ').append(sharded.mostPopularUser()).append('\n').append(sharded);
+            for (int i = 0; i < 60 + 10; i++) {
+                String name = "User" + i;
+                String other = "User" + random.nextInt(60);
+                want.append('\n').append(network.getUser(name) == null ? null : network.getUser(name).getName())
+                        .append(' ').append(network.getUser(name) != null && network.getUser(name).follows(other))
+                        .append(' ').append(network.recommendWhoToFollow(name))
+                        .append(' ').append(java.util.Arrays.toString(network.recommendWhoToFollow(name, 5)));
+                got.append('\n').append(sharded.getUser(name))
+                        .append(' ').append(sharded.follows(name, other))
+                        .append(' ').append(sharded.recommendWhoToFollow(name))
+                        .append(' ').append(java.util.Arrays.toString(sharded.recommendWhoToFollow(name, 5)));
+            }
+            expected = want.toString();
+            actual += got.toString();
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("One shard gives the same answers as Network", expected, actual);
+    }
+
+    public boolean shardedNetworkTest2() {
+        String expected = "";
+        String actual = "";
+        try (ShardedNetwork sharded = new ShardedNetwork(3)) {
+            Network network = new Network();
+            StringBuilder want = new StringBuilder();
+            StringBuilder got = new StringBuilder();
+            java.util.Random random = new java.util.Random(180);
+            for (int i = 0; i < 200; i++) {
+                String name = (random.nextInt(10) == 0) ? "user" + random.nextInt(i + 1) : "User" + i;
+                want.append(network.addUser(name) ? 'T' : 'F');
+                got.append(sharded.addUser(name) ? 'T' : 'F');
+            }
+            for (int i = 0; i < 1500; i++) {
+                String name1 = "User" + random.nextInt(200 + 10);
+                String name2 = "User" + random.nextInt(200 + 10);
+                want.append(network.addFollowee(name1, name2) ? 'T' : 'F');
+                got.append(sharded.addFollowee(name1, name2) ? 'T' : 'F');
+            }
+            want.append(' ').append(network.getUserCount()).append(' ').append(network.mostPopularUser()).append('\n').append(network);
+            got.append(' ').append(sharded.getUserCount()).append(' ').append(sharded.mostPopularUser()).append('\n').append(sharded);
+            for (int i = 0; i < 200 + 10; i++) {
+                String name = "User" + i;
+                String other = "User" + random.nextInt(200);
+                want.append('\n').append(network.getUser(name) == null ? null : network.getUser(name).getName())
+                        .append(' ').append(network.getUser(name) != null && network.getUser(name).follows(other))
+                        .append(' ').append(network.recommendWhoToFollow(name))
+                        .append(' ').append(java.util.Arrays.toString(network.recommendWhoToFollow(name, 5)));
+                got.append('\n').append(sharded.getUser(name))
+                        .append(' ').append(sharded.follows(name, other))
+                        .append(' ').append(sharded.recommendWhoToFollow(name))
+                        .append(' ').append(java.util.Arrays.toString(sharded.recommendWhoToFollow(name, 5)));
+            }
+            expected = want.toString();
+            actual += got.toString();
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Three shards give the same answers as Network", expected, actual);
+    }
+
+    public boolean shardedNetworkTest3() {
+        String expected = "";
+        String actual = "";
+        try (ShardedNetwork sharded = new ShardedNetwork(8)) {
+            Network network = new Network();
+            StringBuilder want = new StringBuilder();
+            StringBuilder got = new StringBuilder();
+            java.util.Random random = new java.util.Random(1800);
+            for (int i = 0; i < 400; i++) {
+                String name = (random.nextInt(10) == 0) ? "user" + random.nextInt(i + 1) : "User" + i;
+                want.append(network.addUser(name) ? 'T' : 'F');
+                got.append(sharded.addUser(name) ? 'T' : 'F');
+            }
+            for (int i = 0; i < 4000; i++) {
+                String name1 = "User" + random.nextInt(400 + 10);
+                String name2 = "User" + random.nextInt(400 + 10);
+                want.append(network.addFollowee(name1, name2) ? 'T' : 'F');
+                got.append(sharded.addFollowee(name1, name2) ? 'T' : 'F');
+            }
+            want.append(' ').append(network.getUserCount()).append(' ').append(network.mostPopularUser()).append('\n').append(network);
+            got.append(' ').append(sharded.getUserCount()).append(' ').append(sharded.mostPopularUser()).append('\n').append(sharded);
+            for (int i = 0; i < 400 + 10; i++) {
+                String name = "User" + i;
+                String other = "User" + random.nextInt(400);
+                want.append('\n').append(network.getUser(name) == null ? null : network.getUser(name).getName())
+                        .append(' ').append(network.getUser(name) != null && network.getUser(name).follows(other))
+                        .append(' ').append(network.recommendWhoToFollow(name))
+                        .append(' ').append(java.util.Arrays.toString(network.recommendWhoToFollow(name, 5)));
+                got.append('\n').append(sharded.getUser(name))
+                        .append(' ').append(sharded.follows(name, other))
+                        .append(' ').append(sharded.recommendWhoToFollow(name))
+                        .append(' ').append(java.util.Arrays.toString(sharded.recommendWhoToFollow(name, 5)));
+            }
+            expected = want.toString();
+            actual += got.toString();
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Eight shards give the same answers as Network, including recommendations and ties", expected, actual);
+    }
+
+    public boolean shardedNetworkTest4() {
+        String expected = "";
+        String actual = "";
+        try (ShardedNetwork sharded = new ShardedNetwork(3)) {
+            Network network = new Network();
+            String[] names = {"Alice", "Bob", "Carol", "Dan", "Erin"};
+            for (String name : names) {
+                network.addUser(name);
+                sharded.addUser(name);
+            }
+            String[][] follows = {{"Alice", "Bob"}, {"Carol", "Bob"}, {"Carol", "Dan"}, {"Erin", "Dan"}};
+            for (String[] pair : follows) {
+                network.addFollowee(pair[0], pair[1]);
+                sharded.addFollowee(pair[0], pair[1]);
+            }
+            expected = java.util.Arrays.toString(network.recommendWhoToFollow("Alice", Integer.MAX_VALUE));
+            actual += java.util.Arrays.toString(sharded.recommendWhoToFollow("Alice", Integer.MAX_VALUE));
+        } catch (Throwable e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Recommend Integer.MAX_VALUE users across shards, every other user", expected, actual);
+    }
+
+    public void mainNetworkTrianglesTest() {
+        this.tester.reset(TesterQuestionEnum.NETWORK_TRIANGLES);
+        boolean passed = runAllTests(TesterQuestionEnum.NETWORK_TRIANGLES);
+        if (passed) {
+            this.tester.updatePoints();
+        }
+        System.out.println(tester);
+    }
+
+    public boolean networkTrianglesTests(int testNumber) {
+        switch (testNumber) {
+            case 1: return trianglesTest1();
+            case 2: return trianglesTest2();
+            case 3: return trianglesTest3();
+            case 4: return trianglesTest4();
+            default: return false;
+        }
+    }
+
+    public boolean trianglesTest1() {
+        String expected = "";
+        String actual = "";
+        try {
+            int n = 40;
+            Network network = new Network();
+            for (int i = 0; i < n; i++) {
+                network.addUser("User" + i);
+            }
+            java.util.Random random = new java.util.Random(20);
+            for (int i = 0; i < 120; i++) {
+                // A few hubs take a large share of the follows, in both directions
+                int a = random.nextInt(n);
+                int b = (random.nextInt(4) == 0) ? random.nextInt(40) : random.nextInt(n);
+                if (random.nextBoolean()) {
+                    network.addFollowee("User" + a, "User" + b);
+                } else {
+                    network.addFollowee("User" + b, "User" + a);
+                }
+            }
+            // Naive reference: two users are connected if either follows the other
+            boolean[][] connected = new boolean[n][n];
+            for (int i = 0; i < n; i++) {
+                for (String f : network.getUser("User" + i).getfFollows()) {
+                    int j = Integer.parseInt(f.substring(4));
+                    connected[i][j] = true;
+                    connected[j][i] = true;
+                }
+            }
+            long triangles = 0;
+            double sum = 0;
+            StringBuilder want = new StringBuilder();
+            StringBuilder got = new StringBuilder();
+            for (int i = 0; i < n; i++) {
+                int[] around = new int[n];
+                int degree = 0;
+                for (int j = 0; j < n; j++) {
+                    if (connected[i][j]) {
+                        around[degree++] = j;
+                    }
+                }
+                long closed = 0;
+                for (int x = 0; x < degree; x++) {
+                    for (int y = x + 1; y < degree; y++) {
+                        if (connected[around[x]][around[y]]) {
+                            closed++;
+                        }
+                    }
+                }
+                triangles += closed;
+                double coefficient = (degree < 2) ? 0.0 : closed / (degree * (degree - 1) / 2.0);
+                sum += coefficient;
+                want.append(String.format("%.9f ", coefficient));
+                got.append(String.format("%.9f ", network.clusteringCoefficient("User" + i)));
+            }
+            expected = (triangles / 3) + " " + String.format("%.9f", sum / n) + " " + want;
+            actual += network.countTriangles() + " " + String.format("%.9f", network.averageClusteringCoefficient()) + " " + got;
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Triangles and clustering of a small random network match a naive count", expected, actual);
+    }
+
+    public boolean trianglesTest2() {
+        String expected = "";
+        String actual = "";
+        try {
+            int n = 300;
+            Network network = new Network();
+            for (int i = 0; i < n; i++) {
+                network.addUser("User" + i);
+            }
+            java.util.Random random = new java.util.Random(200);
+            for (int i = 0; i < 3000; i++) {
+                // A few hubs take a large share of the follows, in both directions
+                int a = random.nextInt(n);
+                int b = (random.nextInt(4) == 0) ? random.nextInt(5) : random.nextInt(n);
+                if (random.nextBoolean()) {
+                    network.addFollowee("User" + a, "User" + b);
+                } else {
+                    network.addFollowee("User" + b, "User" + a);
+                }
+            }
+            // Naive reference: two users are connected if either follows the other
+            boolean[][] connected = new boolean[n][n];
+            for (int i = 0; i < n; i++) {
+                for (String f : network.getUser("User" + i).getfFollows()) {
+                    int j = Integer.parseInt(f.substring(4));
+                    connected[i][j] = true;
+                    connected[j][i] = true;
+                }
+            }
+            long triangles = 0;
+            double sum = 0;
+            StringBuilder want = new StringBuilder();
+            StringBuilder got = new StringBuilder();
+            for (int i = 0; i < n; i++) {
+                int[] around = new int[n];
+                int degree = 0;
+                for (int j = 0; j < n; j++) {
+                    if (connected[i][j]) {
+                        around[degree++] = j;
+                    }
+                }
+                long closed = 0;
+                for (int x = 0; x < degree; x++) {
+                    for (int y = x + 1; y < degree; y++) {
+                        if (connected[around[x]][around[y]]) {
+                            closed++;
+                        }
+                    }
+                }
+                triangles += closed;
+                double coefficient = (degree < 2) ? 0.0 : closed / (degree * (degree - 1) / 2.0);
+                sum += coefficient;
+                want.append(String.format("%.9f ", coefficient));
+                got.append(String.format("%.9f ", network.clusteringCoefficient("User" + i)));
+            }
+            expected = (triangles / 3) + " " + String.format("%.9f", sum / n) + " " + want;
+            actual += network.countTriangles() + " " + String.format("%.9f", network.averageClusteringCoefficient()) + " " + got;
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Triangles and clustering around five hubs match a naive count", expected, actual);
+    }
+
+    public boolean trianglesTest3() {
+        String expected = "";
+        String actual = "";
+        try {
+            int n = 1500;
+            Network network = new Network();
+            for (int i = 0; i < n; i++) {
+                network.addUser("User" + i);
+            }
+            java.util.Random random = new java.util.Random(2000);
+            for (int i = 0; i < 40000; i++) {
+                // A few hubs take a large share of the follows, in both directions
+                int a = random.nextInt(n);
+                int b = (random.nextInt(4) == 0) ? random.nextInt(20) : random.nextInt(n);
+                if (random.nextBoolean()) {
+                    network.addFollowee("User" + a, "User" + b);
+                } else {
+                    network.addFollowee("User" + b, "User" + a);
+                }
+            }
+            // Naive reference: two users are connected if either follows the other
+            boolean[][] connected = new boolean[n][n];
+            for (int i = 0; i < n; i++) {
+                for (String f : network.getUser("User" + i).getfFollows()) {
+                    int j = Integer.parseInt(f.substring(4));
+                    connected[i][j] = true;
+                    connected[j][i] = true;
+                }
+            }
+            long triangles = 0;
+            double sum = 0;
+            StringBuilder want = new StringBuilder();
+            StringBuilder got = new StringBuilder();
+            for (int i = 0; i < n; i++) {
+                int[] around = new int[n];
+                int degree = 0;
+                for (int j = 0; j < n; j++) {
+                    if (connected[i][j]) {
+                        around[degree++] = j;
+                    }
+                }
+                long closed = 0;
+                for (int x = 0; x < degree; x++) {
+                    for (int y = x + 1; y < degree; y++) {
+                        if (connected[around[x]][around[y]]) {
+                            closed++;
+                        }
+                    }
+                }
+                triangles += closed;
+                double coefficient = (degree < 2) ? 0.0 : closed / (degree * (degree - 1) / 2.0);
+                sum += coefficient;
+                want.append(String.format("%.9f ", coefficient));
+                got.append(String.format("%.9f ", network.clusteringCoefficient("User" + i)));
+            }
+            expected = (triangles / 3) + " " + String.format("%.9f", sum / n) + " " + want;
+            actual += network.countTriangles() + " " + String.format("%.9f", network.averageClusteringCoefficient()) + " " + got;
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Triangles of a network large enough to split the count into tasks match a naive count", expected, actual);
+    }
+
+    public boolean trianglesTest4() {
+        String expected = "1 1.000000000 0 0.000000000 -1.000000000";
+        String actual = "";
+        try {
+            Network network = new Network();
+            network.addUser("Alice");
+            network.addUser("Bob");
+            network.addUser("Carol");
+            network.addFollowee("Alice", "Bob");
+            network.addFollowee("Bob", "Alice");
+            network.addFollowee("Bob", "Carol");
+            network.addFollowee("Alice", "Carol");
+            actual += network.countTriangles() + " " + String.format("%.9f", network.clusteringCoefficient("alice")) + " ";
+            network.unfollow("Alice", "Carol");
+            actual += network.countTriangles() + " " + String.format("%.9f", network.clusteringCoefficient("Bob")) + " ";
+            actual += String.format("%.9f", network.clusteringCoefficient("Nobody"));
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("A triangle is counted once whichever way its follows go, and disappears with one unfollow", expected, actual);
+    }
+
+    public void mainNetworkPathsTest() {
+        this.tester.reset(TesterQuestionEnum.NETWORK_PATHS);
+        boolean passed = runAllTests(TesterQuestionEnum.NETWORK_PATHS);
+        if (passed) {
+            this.tester.updatePoints();
+        }
+        System.out.println(tester);
+    }
+
+    public boolean networkPathsTests(int testNumber) {
+        switch (testNumber) {
+            case 1: return pathsTest1();
+            case 2: return pathsTest2();
+            case 3: return pathsTest3();
+            case 4: return pathsTest4();
+            default: return false;
+        }
+    }
+
+    public boolean pathsTest1() {
+        String expected = "";
+        String actual = "";
+        try {
+            int n = 60;
+            Network network = new Network();
+            for (int i = 0; i < n; i++) {
+                network.addUser("User" + i);
+            }
+            java.util.Random random = new java.util.Random(22);
+            for (int i = 0; i < 90; i++) {
+                network.addFollowee("User" + random.nextInt(n), "User" + random.nextInt(n));
+            }
+            boolean[] removed = new boolean[n];
+            for (int i = 0; i < 0; i++) {
+                int r = random.nextInt(n);
+                removed[r] |= network.removeUser("User" + r);
+            }
+            int[][] adjacency = new int[n][];
+            for (int i = 0; i < n; i++) {
+                String[] names = removed[i] ? new String[0] : network.getUser("User" + i).getfFollows();
+                adjacency[i] = new int[names.length];
+                for (int f = 0; f < names.length; f++) {
+                    adjacency[i][f] = Integer.parseInt(names[f].substring(4));
+                }
+            }
+            StringBuilder want = new StringBuilder();
+            StringBuilder got = new StringBuilder();
+            for (int source = 0; source < n; source += 3) {
+                // Naive reference: a plain breadth-first search from the source
+                int[] distance = new int[n];
+                java.util.Arrays.fill(distance, -1);
+                java.util.ArrayDeque<Integer> queue = new java.util.ArrayDeque<>();
+                if (!removed[source]) {
+                    distance[source] = 0;
+                    queue.add(source);
+                }
+                while (!queue.isEmpty()) {
+                    int u = queue.poll();
+                    for (int v : adjacency[u]) {
+                        if (distance[v] == -1) {
+                            distance[v] = distance[u] + 1;
+                            queue.add(v);
+                        }
+                    }
+                }
+                for (int target = 0; target < n; target += 2) {
+                    want.append(distance[target]).append(' ');
+                    got.append(network.degreesOfSeparation("User" + source, "User" + target)).append(' ');
+                    String[] path = network.shortestPath("User" + source, "User" + target);
+                    if ((path == null) != (distance[target] == -1)
+                            || (path != null && (path.length != distance[target] + 1 || !path[0].equals("User" + source)
+                                    || !path[path.length - 1].equals("User" + target)))) {
+                        got.append("bad path ").append(java.util.Arrays.toString(path)).append(' ');
+                    }
+                    for (int i = 0; path != null && i + 1 < path.length; i++) {
+                        if (!network.getUser(path[i]).follows(path[i + 1])) {
+                            got.append("no follow ").append(path[i]).append("->").append(path[i + 1]).append(' ');
+                        }
+                    }
+                }
+            }
+            expected = want.toString();
+            actual += got.toString();
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Distances and paths in a sparse network with unreachable users match a naive search", expected, actual);
+    }
+
+    public boolean pathsTest2() {
+        String expected = "";
+        String actual = "";
+        try {
+            int n = 400;
+            Network network = new Network();
+            for (int i = 0; i < n; i++) {
+                network.addUser("User" + i);
+            }
+            java.util.Random random = new java.util.Random(220);
+            for (int i = 0; i < 1200; i++) {
+                network.addFollowee("User" + random.nextInt(n), "User" + random.nextInt(n));
+            }
+            boolean[] removed = new boolean[n];
+            for (int i = 0; i < 40; i++) {
+                int r = random.nextInt(n);
+                removed[r] |= network.removeUser("User" + r);
+            }
+            int[][] adjacency = new int[n][];
+            for (int i = 0; i < n; i++) {
+                String[] names = removed[i] ? new String[0] : network.getUser("User" + i).getfFollows();
+                adjacency[i] = new int[names.length];
+                for (int f = 0; f < names.length; f++) {
+                    adjacency[i][f] = Integer.parseInt(names[f].substring(4));
+                }
+            }
+            StringBuilder want = new StringBuilder();
+            StringBuilder got = new StringBuilder();
+            for (int source = 0; source < n; source += 3) {
+                // Naive reference: a plain breadth-first search from the source
+                int[] distance = new int[n];
+                java.util.Arrays.fill(distance, -1);
+                java.util.ArrayDeque<Integer> queue = new java.util.ArrayDeque<>();
+                if (!removed[source]) {
+                    distance[source] = 0;
+                    queue.add(source);
+                }
+                while (!queue.isEmpty()) {
+                    int u = queue.poll();
+                    for (int v : adjacency[u]) {
+                        if (distance[v] == -1) {
+                            distance[v] = distance[u] + 1;
+                            queue.add(v);
+                        }
+                    }
+                }
+                for (int target = 0; target < n; target += 2) {
+                    want.append(distance[target]).append(' ');
+                    got.append(network.degreesOfSeparation("User" + source, "User" + target)).append(' ');
+                    String[] path = network.shortestPath("User" + source, "User" + target);
+                    if ((path == null) != (distance[target] == -1)
+                            || (path != null && (path.length != distance[target] + 1 || !path[0].equals("User" + source)
+                                    || !path[path.length - 1].equals("User" + target)))) {
+                        got.append("bad path ").append(java.util.Arrays.toString(path)).append(' ');
+                    }
+                    for (int i = 0; path != null && i + 1 < path.length; i++) {
+                        if (!network.getUser(path[i]).follows(path[i + 1])) {
+                            got.append("no follow ").append(path[i]).append("->").append(path[i + 1]).append(' ');
+                        }
+                    }
+                }
+            }
+            expected = want.toString();
+            actual += got.toString();
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Distances and paths after removals match a naive search", expected, actual);
+    }
+
+    public boolean pathsTest3() {
+        String expected = "";
+        String actual = "";
+        try {
+            int n = 1500;
+            Network network = new Network();
+            for (int i = 0; i < n; i++) {
+                network.addUser("User" + i);
+            }
+            java.util.Random random = new java.util.Random(2200);
+            for (int i = 0; i < 12000; i++) {
+                network.addFollowee("User" + random.nextInt(n), "User" + random.nextInt(n));
+            }
+            boolean[] removed = new boolean[n];
+            for (int i = 0; i < 100; i++) {
+                int r = random.nextInt(n);
+                removed[r] |= network.removeUser("User" + r);
+            }
+            int[][] adjacency = new int[n][];
+            for (int i = 0; i < n; i++) {
+                String[] names = removed[i] ? new String[0] : network.getUser("User" + i).getfFollows();
+                adjacency[i] = new int[names.length];
+                for (int f = 0; f < names.length; f++) {
+                    adjacency[i][f] = Integer.parseInt(names[f].substring(4));
+                }
+            }
+            StringBuilder want = new StringBuilder();
+            StringBuilder got = new StringBuilder();
+            for (int source = 0; source < n; source += 3) {
+                // Naive reference: a plain breadth-first search from the source
+                int[] distance = new int[n];
+                java.util.Arrays.fill(distance, -1);
+                java.util.ArrayDeque<Integer> queue = new java.util.ArrayDeque<>();
+                if (!removed[source]) {
+                    distance[source] = 0;
+                    queue.add(source);
+                }
+                while (!queue.isEmpty()) {
+                    int u = queue.poll();
+                    for (int v : adjacency[u]) {
+                        if (distance[v] == -1) {
+                            distance[v] = distance[u] + 1;
+                            queue.add(v);
+                        }
+                    }
+                }
+                for (int target = 0; target < n; target += 2) {
+                    want.append(distance[target]).append(' ');
+                    got.append(network.degreesOfSeparation("User" + source, "User" + target)).append(' ');
+                    String[] path = network.shortestPath("User" + source, "User" + target);
+                    if ((path == null) != (distance[target] == -1)
+                            || (path != null && (path.length != distance[target] + 1 || !path[0].equals("User" + source)
+                                    || !path[path.length - 1].equals("User" + target)))) {
+                        got.append("bad path ").append(java.util.Arrays.toString(path)).append(' ');
+                    }
+                    for (int i = 0; path != null && i + 1 < path.length; i++) {
+                        if (!network.getUser(path[i]).follows(path[i + 1])) {
+                            got.append("no follow ").append(path[i]).append("->").append(path[i + 1]).append(' ');
+                        }
+                    }
+                }
+            }
+            expected = want.toString();
+            actual += got.toString();
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Distances and paths in a dense network match a naive search", expected, actual);
+    }
+
+    public boolean pathsTest4() {
+        String expected = "999 User0 User999 -1 null 0 [User5] -1 -1 3";
+        String actual = "";
+        try {
+            Network network = new Network();
+            for (int i = 0; i < 1000; i++) {
+                network.addUser("User" + i);
+            }
+            for (int i = 0; i + 1 < 1000; i++) {
+                network.addFollowee("User" + i, "User" + (i + 1));
+            }
+            String[] path = network.shortestPath("User0", "User999");
+            actual += network.degreesOfSeparation("User0", "User999") + " " + path[0] + " " + path[path.length - 1] + " ";
+            actual += network.degreesOfSeparation("User999", "User0") + " " + java.util.Arrays.toString(network.shortestPath("User999", "User0")) + " ";
+            actual += network.degreesOfSeparation("User5", "user5") + " " + java.util.Arrays.toString(network.shortestPath("User5", "User5")) + " ";
+            actual += network.degreesOfSeparation("User5", "Nobody") + " ";
+            network.removeUser("User500");
+            actual += network.degreesOfSeparation("User0", "User999") + " ";
+            network.addFollowee("User499", "User501");
+            network.addFollowee("User0", "User499");
+            actual += network.degreesOfSeparation("User0", "User502");
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("A chain of 1000 users: one way only, broken by a removal, shortened by new follows", expected, actual);
+    }
+
+    public void mainNetworkComponentsTest() {
+        this.tester.reset(TesterQuestionEnum.NETWORK_COMPONENTS);
+        boolean passed = runAllTests(TesterQuestionEnum.NETWORK_COMPONENTS);
+        if (passed) {
+            this.tester.updatePoints();
+        }
+        System.out.println(tester);
+    }
+
+    public boolean networkComponentsTests(int testNumber) {
+        switch (testNumber) {
+            case 1: return componentsTest1();
+            case 2: return componentsTest2();
+            case 3: return componentsTest3();
+            default: return false;
+        }
+    }
+
+    public boolean componentsTest1() {
+        String expected = "";
+        String actual = "";
+        try {
+            int n = 50;
+            Network network = new Network();
+            for (int i = 0; i < n; i++) {
+                network.addUser("User" + i);
+            }
+            java.util.Random random = new java.util.Random(23);
+            for (int i = 0; i < 40; i++) {
+                network.addFollowee("User" + random.nextInt(n), "User" + random.nextInt(n));
+            }
+            boolean[] removed = new boolean[n];
+            for (int i = 0; i < 0; i++) {
+                int r = random.nextInt(n);
+                removed[r] |= network.removeUser("User" + r);
+            }
+            java.util.List<java.util.List<Integer>> forward = new java.util.ArrayList<>();
+            java.util.List<java.util.List<Integer>> both = new java.util.ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                forward.add(new java.util.ArrayList<>());
+                both.add(new java.util.ArrayList<>());
+            }
+            for (int i = 0; i < n; i++) {
+                if (!removed[i]) {
+                    for (String f : network.getUser("User" + i).getfFollows()) {
+                        int j = Integer.parseInt(f.substring(4));
+                        forward.get(i).add(j);
+                        both.get(i).add(j);
+                        both.get(j).add(i);
+                    }
+                }
+            }
+            // Naive reference: users reachable from each user, ignoring direction for weak components
+            int[] weak = new int[n];
+            java.util.Arrays.fill(weak, -1);
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                if (removed[i] || weak[i] != -1) {
+                    continue;
+                }
+                for (int v : reach(both, i, n)) {
+                    weak[v] = count;
+                }
+                count++;
+            }
+            expected = groupsOf(weak, removed, count);
+            actual += describe(network.weakComponents());
+            if (true) {
+                boolean[][] reaches = new boolean[n][];
+                for (int i = 0; i < n; i++) {
+                    reaches[i] = new boolean[n];
+                    if (!removed[i]) {
+                        for (int v : reach(forward, i, n)) {
+                            reaches[i][v] = true;
+                        }
+                    }
+                }
+                int[] strong = new int[n];
+                java.util.Arrays.fill(strong, -1);
+                count = 0;
+                for (int i = 0; i < n; i++) {
+                    if (removed[i] || strong[i] != -1) {
+                        continue;
+                    }
+                    for (int j = i; j < n; j++) {
+                        if (reaches[i][j] && reaches[j][i]) {
+                            strong[j] = count;
+                        }
+                    }
+                    count++;
+                }
+                expected += "|" + groupsOf(strong, removed, count);
+                actual += "|" + describe(network.strongComponents());
+            }
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Weak and strong components of a sparse network match a naive search", expected, actual);
+    }
+
+    public boolean componentsTest2() {
+        String expected = "";
+        String actual = "";
+        try {
+            int n = 400;
+            Network network = new Network();
+            for (int i = 0; i < n; i++) {
+                network.addUser("User" + i);
+            }
+            java.util.Random random = new java.util.Random(230);
+            for (int i = 0; i < 500; i++) {
+                network.addFollowee("User" + random.nextInt(n), "User" + random.nextInt(n));
+            }
+            boolean[] removed = new boolean[n];
+            for (int i = 0; i < 30; i++) {
+                int r = random.nextInt(n);
+                removed[r] |= network.removeUser("User" + r);
+            }
+            java.util.List<java.util.List<Integer>> forward = new java.util.ArrayList<>();
+            java.util.List<java.util.List<Integer>> both = new java.util.ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                forward.add(new java.util.ArrayList<>());
+                both.add(new java.util.ArrayList<>());
+            }
+            for (int i = 0; i < n; i++) {
+                if (!removed[i]) {
+                    for (String f : network.getUser("User" + i).getfFollows()) {
+                        int j = Integer.parseInt(f.substring(4));
+                        forward.get(i).add(j);
+                        both.get(i).add(j);
+                        both.get(j).add(i);
+                    }
+                }
+            }
+            // Naive reference: users reachable from each user, ignoring direction for weak components
+            int[] weak = new int[n];
+            java.util.Arrays.fill(weak, -1);
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                if (removed[i] || weak[i] != -1) {
+                    continue;
+                }
+                for (int v : reach(both, i, n)) {
+                    weak[v] = count;
+                }
+                count++;
+            }
+            expected = groupsOf(weak, removed, count);
+            actual += describe(network.weakComponents());
+            if (true) {
+                boolean[][] reaches = new boolean[n][];
+                for (int i = 0; i < n; i++) {
+                    reaches[i] = new boolean[n];
+                    if (!removed[i]) {
+                        for (int v : reach(forward, i, n)) {
+                            reaches[i][v] = true;
+                        }
+                    }
+                }
+                int[] strong = new int[n];
+                java.util.Arrays.fill(strong, -1);
+                count = 0;
+                for (int i = 0; i < n; i++) {
+                    if (removed[i] || strong[i] != -1) {
+                        continue;
+                    }
+                    for (int j = i; j < n; j++) {
+                        if (reaches[i][j] && reaches[j][i]) {
+                            strong[j] = count;
+                        }
+                    }
+                    count++;
+                }
+                expected += "|" + groupsOf(strong, removed, count);
+                actual += "|" + describe(network.strongComponents());
+            }
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Weak and strong components after removals match a naive search", expected, actual);
+    }
+
+    public boolean componentsTest3() {
+        String expected = "";
+        String actual = "";
+        try {
+            int n = 12000;
+            Network network = new Network();
+            for (int i = 0; i < n; i++) {
+                network.addUser("User" + i);
+            }
+            java.util.Random random = new java.util.Random(2300);
+            for (int i = 0; i < 9000; i++) {
+                network.addFollowee("User" + random.nextInt(n), "User" + random.nextInt(n));
+            }
+            boolean[] removed = new boolean[n];
+            for (int i = 0; i < 200; i++) {
+                int r = random.nextInt(n);
+                removed[r] |= network.removeUser("User" + r);
+            }
+            java.util.List<java.util.List<Integer>> forward = new java.util.ArrayList<>();
+            java.util.List<java.util.List<Integer>> both = new java.util.ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                forward.add(new java.util.ArrayList<>());
+                both.add(new java.util.ArrayList<>());
+            }
+            for (int i = 0; i < n; i++) {
+                if (!removed[i]) {
+                    for (String f : network.getUser("User" + i).getfFollows()) {
+                        int j = Integer.parseInt(f.substring(4));
+                        forward.get(i).add(j);
+                        both.get(i).add(j);
+                        both.get(j).add(i);
+                    }
+                }
+            }
+            // Naive reference: users reachable from each user, ignoring direction for weak components
+            int[] weak = new int[n];
+            java.util.Arrays.fill(weak, -1);
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                if (removed[i] || weak[i] != -1) {
+                    continue;
+                }
+                for (int v : reach(both, i, n)) {
+                    weak[v] = count;
+                }
+                count++;
+            }
+            expected = groupsOf(weak, removed, count);
+            actual += describe(network.weakComponents());
+            if (false) {
+                boolean[][] reaches = new boolean[n][];
+                for (int i = 0; i < n; i++) {
+                    reaches[i] = new boolean[n];
+                    if (!removed[i]) {
+                        for (int v : reach(forward, i, n)) {
+                            reaches[i][v] = true;
+                        }
+                    }
+                }
+                int[] strong = new int[n];
+                java.util.Arrays.fill(strong, -1);
+                count = 0;
+                for (int i = 0; i < n; i++) {
+                    if (removed[i] || strong[i] != -1) {
+                        continue;
+                    }
+                    for (int j = i; j < n; j++) {
+                        if (reaches[i][j] && reaches[j][i]) {
+                            strong[j] = count;
+                        }
+                    }
+                    count++;
+                }
+                expected += "|" + groupsOf(strong, removed, count);
+                actual += "|" + describe(network.strongComponents());
+            }
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Weak components of a network large enough to split the unions into tasks match a naive search", expected, actual);
+    }
+
+    /** Lists component groups as text, one group of comma-separated names per component. */
+    private static String describe(String[][] groups) {
+        StringBuilder ans = new StringBuilder();
+        for (String[] group : groups) {
+            ans.append(String.join(",", group)).append(';');
+        }
+        return ans.toString();
+    }
+
+    /** Lists naive component labels as text, in the format of describe. */
+    private static String groupsOf(int[] labels, boolean[] removed, int count) {
+        StringBuilder[] groups = new StringBuilder[count];
+        for (int i = 0; i < labels.length; i++) {
+            if (removed[i]) {
+                continue;
+            }
+            if (groups[labels[i]] == null) {
+                groups[labels[i]] = new StringBuilder("User" + i);
+            } else {
+                groups[labels[i]].append(",User").append(i);
+            }
+        }
+        StringBuilder ans = new StringBuilder();
+        for (StringBuilder group : groups) {
+            ans.append(group).append(';');
+        }
+        return ans.toString();
+    }
+
+    /** Finds the users reachable from a source along an adjacency list, source first. */
+    private static java.util.List<Integer> reach(java.util.List<java.util.List<Integer>> adjacency, int source, int n) {
+        boolean[] seen = new boolean[n];
+        java.util.List<Integer> order = new java.util.ArrayList<>();
+        seen[source] = true;
+        order.add(source);
+        for (int head = 0; head < order.size(); head++) {
+            for (int v : adjacency.get(order.get(head))) {
+                if (!seen[v]) {
+                    seen[v] = true;
+                    order.add(v);
+                }
+            }
+        }
+        return order;
+    }
+
+    public void mainNetworkRandomWalksTest() {
+        this.tester.reset(TesterQuestionEnum.NETWORK_RANDOM_WALKS);
+        boolean passed = runAllTests(TesterQuestionEnum.NETWORK_RANDOM_WALKS);
+        if (passed) {
+            this.tester.updatePoints();
+        }
+        System.out.println(tester);
+    }
+
+    public boolean networkRandomWalksTests(int testNumber) {
+        switch (testNumber) {
+            case 1: return randomWalksTest1();
+            case 2: return randomWalksTest2();
+            case 3: return randomWalksTest3();
+            case 4: return randomWalksTest4();
+            default: return false;
+        }
+    }
+
+    public boolean randomWalksTest1() {
+        String expected = "[Carol, Dan] [Carol, Dan] [Dan] [] null []";
+        String actual = "";
+        try {
+            Network network = new Network();
+            network.addUser("Alice");
+            network.addUser("Bob");
+            network.addUser("Carol");
+            network.addUser("Dan");
+            network.addFollowee("Alice", "Bob");
+            network.addFollowee("Bob", "Carol");
+            network.addFollowee("Carol", "Dan");
+            actual += java.util.Arrays.toString(network.recommendByRandomWalks("Alice", 3)) + " ";
+            actual += java.util.Arrays.toString(network.recommendByRandomWalks("alice", 3)) + " ";
+            network.addFollowee("Alice", "Carol");
+            actual += java.util.Arrays.toString(network.recommendByRandomWalks("Alice", 3)) + " ";
+            network.removeUser("Dan");
+            actual += java.util.Arrays.toString(network.recommendByRandomWalks("Alice", 3)) + " ";
+            actual += java.util.Arrays.toString(network.recommendByRandomWalks("Nobody", 3)) + " ";
+            actual += java.util.Arrays.toString(network.recommendByRandomWalks("Bob", 3, 0));
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Walks along a chain rank nearer users first and see every change at once", expected, actual);
+    }
+
+    public boolean randomWalksTest2() {
+        String expected = "10 true true";
+        String actual = "";
+        try {
+            Network network = new Network();
+            network.addUser("Source");
+            network.addUser("Hub");
+            for (int i = 0; i < 20000; i++) {
+                network.addUser("User" + i);
+                network.addFollowee("Hub", "User" + i);
+            }
+            network.addFollowee("Source", "Hub");
+            network.addFollowee("Source", "User7");
+            String[] best = network.recommendByRandomWalks("Source", 10, 20000);
+            boolean valid = true;
+            for (String name : best) {
+                valid &= !name.equals("Source") && !name.equals("Hub") && !name.equals("User7");
+            }
+            actual += best.length + " " + valid + " "
+                    + java.util.Arrays.equals(best, network.recommendByRandomWalks("Source", 10, 20000));
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Walks through a hub with 20000 followees skip followed users and repeat for the same network", expected, actual);
+    }
+
+    public boolean randomWalksTest3() {
+        String expected = "[Popular, Quiet]";
+        String actual = "";
+        try {
+            Network network = new Network();
+            network.addUser("Source");
+            network.addUser("Quiet");
+            network.addUser("Popular");
+            for (int i = 0; i < 20; i++) {
+                network.addUser("Friend" + i);
+                network.addFollowee("Source", "Friend" + i);
+                network.addFollowee("Friend" + i, "Popular");
+            }
+            network.addFollowee("Friend0", "Quiet");
+            actual += java.util.Arrays.toString(network.recommendByRandomWalks("Source", 2));
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("A user whom every followee follows ranks before a user whom one followee follows", expected, actual);
+    }
+
+    public boolean randomWalksTest4() {
+        String expected = "[Carol, Dan] []";
+        String actual = "";
+        try {
+            Network network = new Network();
+            network.addUser("Alice");
+            network.addUser("Bob");
+            network.addUser("Carol");
+            network.addUser("Dan");
+            network.addFollowee("Alice", "Bob");
+            network.addFollowee("Bob", "Carol");
+            network.addFollowee("Carol", "Dan");
+            actual += java.util.Arrays.toString(network.recommendByRandomWalks("Alice", Integer.MAX_VALUE)) + " ";
+            actual += java.util.Arrays.toString(network.recommendByRandomWalks("Bob", Integer.MAX_VALUE, 0));
+        } catch (Throwable e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Recommend Integer.MAX_VALUE users by random walks, every user visited", expected, actual);
+    }
+
+    public void mainNetworkPageRankTest() {
+        this.tester.reset(TesterQuestionEnum.NETWORK_PAGE_RANK);
+        boolean passed = runAllTests(TesterQuestionEnum.NETWORK_PAGE_RANK);
+        if (passed) {
+            this.tester.updatePoints();
+        }
+        System.out.println(tester);
+    }
+
+    public boolean networkPageRankTests(int testNumber) {
+        switch (testNumber) {
+            case 1: return pageRankTest1();
+            case 2: return pageRankTest2();
+            case 3: return pageRankTest3();
+            case 4: return pageRankTest4();
+            default: return false;
+        }
+    }
+
+    public boolean pageRankTest1() {
+        // A -> B only: rA = 0.15/2 + 0.85 rB/2 and rA + rB = 1, so rA = 0.5/1.425 and rB = 0.925/1.425
+        String expected = "0.350877 0.649123 [Bob, Alice]";
+        String actual = "";
+        try {
+            Network network = new Network();
+            network.addUser("Alice");
+            network.addUser("Bob");
+            network.addFollowee("Alice", "Bob");
+            CompactGraph graph = network.compactGraph();
+            PageRank pageRank = new PageRank(graph).run();
+            actual += String.format("%.6f %.6f ", pageRank.rankOf(graph.denseOf(network.getUser("Alice").getId())),
+                    pageRank.rankOf(graph.denseOf(network.getUser("Bob").getId())));
+            actual += java.util.Arrays.toString(network.mostInfluentialUsers(Integer.MAX_VALUE));
+        } catch (Throwable e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("PageRank of a single follow, computed by hand", expected, actual);
+    }
+
+    public boolean pageRankTest2() {
+        String expected = "";
+        String actual = "";
+        try {
+            java.util.Random random = new java.util.Random(21);
+            Network network = new Network();
+            int n = 300;
+            for (int i = 0; i < n; i++) {
+                network.addUser("User" + i);
+            }
+            for (int e = 0; e < 3000; e++) {
+                // Followees skewed to low numbers, so that the top ranks are well apart
+                network.addFollowee("User" + random.nextInt(n), "User" + random.nextInt(random.nextInt(n) + 1));
+            }
+            double[] naive = naivePageRank(network, n);
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            java.util.Arrays.sort(order, (a, b) -> Double.compare(naive[b], naive[a]));
+            for (int i = 0; i < 10; i++) {
+                expected += "User" + order[i] + " ";
+            }
+            expected += "true";
+            CompactGraph graph = network.compactGraph();
+            PageRank pageRank = new PageRank(graph).run();
+            boolean close = true;
+            for (int i = 0; i < n; i++) {
+                close &= Math.abs(pageRank.rankOf(graph.denseOf(network.getUser("User" + i).getId())) - naive[i]) < 1e-6;
+            }
+            for (String name : network.mostInfluentialUsers(10)) {
+                actual += name + " ";
+            }
+            actual += close;
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("PageRank of 300 users with 3000 random follows, compared with a naive power iteration", expected, actual);
+    }
+
+    public boolean pageRankTest3() {
+        String expected = "[Alice, Bob, Carol, Dan, Erin] [Carol, Dan, Erin]";
+        String actual = "";
+        try {
+            // Two pairs of friends and a user nobody follows: the four friends tie above Erin,
+            // and once Alice and Bob are removed, Carol and Dan still tie above her
+            Network network = new Network();
+            network.addUser("Alice");
+            network.addUser("Bob");
+            network.addUser("Carol");
+            network.addUser("Dan");
+            network.addUser("Erin");
+            network.addFollowee("Carol", "Dan");
+            network.addFollowee("Dan", "Carol");
+            network.addFollowee("Alice", "Bob");
+            network.addFollowee("Bob", "Alice");
+            actual += java.util.Arrays.toString(network.mostInfluentialUsers(5)) + " ";
+            network.removeUser("Alice");
+            network.removeUser("Bob");
+            actual += java.util.Arrays.toString(network.mostInfluentialUsers(5));
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("Users of equal rank are listed in the order they were added", expected, actual);
+    }
+
+    public boolean pageRankTest4() {
+        String expected = "[Alice, Bob] [Carol, Alice] [Alice, Bob]";
+        String actual = "";
+        try {
+            Network network = new Network();
+            network.addUser("Alice");
+            network.addUser("Bob");
+            network.addUser("Carol");
+            network.addUser("Dan");
+            network.addFollowee("Bob", "Alice");
+            network.addFollowee("Carol", "Alice");
+            network.addFollowee("Dan", "Bob");
+            actual += java.util.Arrays.toString(network.mostInfluentialUsers(2)) + " ";
+            network.unfollow("Carol", "Alice");
+            network.addFollowee("Alice", "Carol");
+            network.addFollowee("Bob", "Carol");
+            network.addFollowee("Dan", "Carol");
+            actual += java.util.Arrays.toString(network.mostInfluentialUsers(2)) + " ";
+            network.unfollow("Dan", "Carol");
+            network.unfollow("Bob", "Carol");
+            network.unfollow("Alice", "Carol");
+            network.addFollowee("Dan", "Alice");
+            actual += java.util.Arrays.toString(network.mostInfluentialUsers(2));
+        } catch (Exception e) {
+            actual = TesterMessagesEnum.ERROR + e.getMessage();
+        }
+        return this.tester.test("The ranks are computed again after follows and unfollows", expected, actual);
+    }
+
+    /** Computes the PageRank of User0..User(n-1) by plain power iteration, the users who follow nobody spreading their rank over everyone. */
+    private static double[] naivePageRank(Network network, int n) {
+        int[][] follows = new int[n][];
+        for (int i = 0; i < n; i++) {
+            String[] names = network.getUser("User" + i).getfFollows();
+            follows[i] = new int[names.length];
+            for (int j = 0; j < names.length; j++) {
+                follows[i][j] = Integer.parseInt(names[j].substring("User".length()));
+            }
+        }
+        double[] rank = new double[n];
+        java.util.Arrays.fill(rank, 1.0 / n);
+        for (int iteration = 0; iteration < 200; iteration++) {
+            double[] next = new double[n];
+            double dangling = 0;
+            for (int i = 0; i < n; i++) {
+                if (follows[i].length == 0) {
+                    dangling += rank[i];
+                }
+                for (int followee : follows[i]) {
+                    next[followee] += 0.85 * rank[i] / follows[i].length;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                next[i] += 0.15 / n + 0.85 * dangling / n;
+            }
+            rank = next;
+        }
+        return rank;
+    }
+
+    public void conclusion() {
+        this.tester.conclusion();
+    }
+
+    public void questionDecider(TesterQuestionEnum question, String[] args) {
+        switch (question) {
+            case USER_FOLLOWS:
+                this.mainTestUserFollow();
+                break;
+            case USER_ADD_FOLLOWEE:
+                this.mainAddFolloweeTest();
+                break;
+            case USER_REMOVE_FOLLOWEE:
+                this.mainRemoveFolloweeTest();
+                break;
+            case USER_COUNT_MUTUAL:
+                this.mainCountMutualTest();
+                break;
+            case USER_IS_FRIEND_OF:
+                this.mainIsFriendOfTest();
+                break;
+            case NETWORK_GET_USER:
+                this.mainNetworkGetUserTest();
+                break;
+            case NETWORK_ADD_USER:
+                this.mainNetworkAddUserTest();
+                break;
+            case NETWORK_ADD_FOLLOWEE:
+                this.mainNetworkAddFolloweeTest();
+                break;
+            case NETWORK_RECOMMEND_WHO_TO_FOLLOW:
+                this.mainNetworkRecommendWhoToFollowTest();
+                break;
+            case NETWORK_MOST_POPULAR_USER:
+                this.mainNetworkMostPopularUserTest();
+                break;
+            case NETWORK_TO_STRING:
+                this.mainNetworkToStringTest();
+                break;
+            case ID_SET:
+                this.mainIdSetTest();
+                break;
+            case NETWORK_SAVE_LOAD:
+                this.mainNetworkSaveLoadTest();
+                break;
+            case NETWORK_LOAD_EDGE_LIST:
+                this.mainNetworkLoadEdgeListTest();
+                break;
+            case NETWORK_MUTATION_LOG:
+                this.mainNetworkMutationLogTest();
+                break;
+            case CONCURRENT_NETWORK:
+                this.mainConcurrentNetworkTest();
+                break;
+            case NETWORK_SNAPSHOT:
+                this.mainNetworkSnapshotTest();
+                break;
+            case NETWORK_REMOVE_USER:
+                this.mainNetworkRemoveUserTest();
+                break;
+            case SHARDED_NETWORK:
+                this.mainShardedNetworkTest();
+                break;
+            case NETWORK_TRIANGLES:
+                this.mainNetworkTrianglesTest();
+                break;
+            case NETWORK_PATHS:
+                this.mainNetworkPathsTest();
+                break;
+            case NETWORK_COMPONENTS:
+                this.mainNetworkComponentsTest();
+                break;
+            case NETWORK_RANDOM_WALKS:
+                this.mainNetworkRandomWalksTest();
+                break;
+            case NETWORK_PAGE_RANK:
+                this.mainNetworkPageRankTest();
                 break;
             default:
                 System.out.println("Invalid Question");
@@ -9,7 +9,20 @@ public enum TesterQuestionEnum {
     NETWORK_ADD_FOLLOWEE("Network Class, addFollowee method", 10),
     NETWORK_RECOMMEND_WHO_TO_FOLLOW("Network Class, recommendWhoToFollow method", 10),
     NETWORK_MOST_POPULAR_USER("Network Class, mostPopularUser method", 10),
-    NETWORK_TO_STRING("Network Class, toString method", 8);
+    NETWORK_TO_STRING("Network Class, toString method", 8),
+    ID_SET("IdSet Class, large sets", 8),
+    NETWORK_SAVE_LOAD("Network Class, save and load methods", 8),
+    NETWORK_LOAD_EDGE_LIST("Network Class, loadEdgeList method", 8),
+    NETWORK_MUTATION_LOG("Network Class, attachLog, checkpoint and recover methods", 10),
+    CONCURRENT_NETWORK("ConcurrentNetwork Class, addFollowee, removeFollowee and countMutual methods", 10),
+    NETWORK_SNAPSHOT("Network Class, snapshot method and NetworkSnapshot Class", 10),
+    NETWORK_REMOVE_USER("Network Class, removeUser method", 10),
+    SHARDED_NETWORK("ShardedNetwork Class, compared with Network", 10),
+    NETWORK_TRIANGLES("Network Class, countTriangles and clusteringCoefficient methods", 10),
+    NETWORK_PATHS("Network Class, shortestPath and degreesOfSeparation methods", 10),
+    NETWORK_COMPONENTS("Network Class, weakComponents and strongComponents methods", 10),
+    NETWORK_RANDOM_WALKS("Network Class, recommendByRandomWalks method", 10),
+    NETWORK_PAGE_RANK("Network Class, mostInfluentialUsers method", 10);
     
     private final String question;
     private final int maxPoints;
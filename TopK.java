@@ -0,0 +1,112 @@
+/** Selects the k best of a stream of int items (slots, dense ids, table positions...) in
+ *  O(n log k) time, with a bounded min-heap whose root is the weakest item kept.
+ *  The order of the items is given by an IntComparator, usually reading a score array
+ *  that the items index; an item that compares below another ranks before it. */
+class TopK {
+    /** Compares two items: negative if a ranks before b, positive if after, 0 if neither. */
+    interface IntComparator {
+        int compare(int a, int b);
+    }
+
+    // Fields
+    private final int[] heap;             // kept items; the weakest is at heap[0]
+    private final IntComparator order;    // ranking of the items
+    private int size;                     // number of kept items
+
+    /**
+     * Creates an empty selection.
+     * @param k Maximum number of items to keep; 0 or less keeps none
+     * @param order Ranking of the items
+     */
+    TopK(int k, IntComparator order) {
+        this.heap = new int[Math.max(k, 0)];
+        this.order = order;
+    }
+
+    /**
+     * Offers an item, which is kept if fewer than k items are kept or it ranks before the weakest one.
+     * @param item Item to offer
+     * @return true if the item was kept
+     */
+    boolean offer(int item) {
+        if (size < heap.length) {
+            heap[size] = item;
+            siftUp(size++);
+            return true;
+        }
+        if (size == 0 || order.compare(item, heap[0]) >= 0) {
+            return false;
+        }
+        heap[0] = item;
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * Checks if k items are kept, so that an item is only kept by displacing the weakest.
+     * @return true if the selection is full
+     */
+    boolean isFull() {
+        return size == heap.length;
+    }
+
+    /**
+     * Gets the weakest item kept.
+     * @return The item that the next kept item would displace; only valid if at least one item is kept
+     */
+    int weakest() {
+        return heap[0];
+    }
+
+    /**
+     * Gets the number of items kept.
+     * @return Number of items, at most k
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes every kept item, best first.
+     * @return The kept items, best first
+     */
+    int[] drain() {
+        int[] ans = new int[size];
+        while (size > 0) {
+            ans[size - 1] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0);
+        }
+        return ans;
+    }
+
+    /** Moves heap[i] up while its parent ranks after it. */
+    private void siftUp(int i) {
+        int item = heap[i];
+        while (i > 0 && order.compare(heap[(i - 1) / 2], item) < 0) {
+            heap[i] = heap[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        heap[i] = item;
+    }
+
+    /** Moves heap[i] down while a child ranks after it. */
+    private void siftDown(int i) {
+        if (size == 0) {
+            return;
+        }
+        int item = heap[i];
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && order.compare(heap[child], heap[child + 1]) < 0) {
+                child++;
+            }
+            if (order.compare(item, heap[child]) >= 0) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+}
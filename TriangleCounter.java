@@ -0,0 +1,253 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Counts the triangles of a follow graph and the clustering coefficient of every user.
+ *  Follows are taken as undirected friendships-or-better: two users are adjacent when either
+ *  follows the other, and a triangle is three pairwise adjacent users.
+ *  Users are ranked by degree and every edge is kept only at its lower-ranked end, so each
+ *  triangle is found exactly once, from its lowest-ranked corner, by intersecting two sorted
+ *  forward lists; ranking by degree keeps those lists short even around very popular users.
+ *  The intersections are split into fork-join tasks by forward-edge count, so idle workers
+ *  steal the remaining ranges. Usage: new TriangleCounter(graph).count(), then the getters. */
+public class TriangleCounter {
+    // Forward edges in a task before it is split in two
+    private static final int SPLIT_EDGES = 1 << 14;
+
+    // Fields
+    private final CompactGraph graph; // graph being analysed
+    private int[] degree;        // undirected degree by dense id
+    private int[] rankOf;        // rank of each dense id; lower degree ranks first
+    private int[] forwardOffsets; // by rank: start of each forward list in forward
+    private int[] forward;       // higher-ranked neighbours of each rank, ascending
+    private AtomicLongArray trianglesByRank; // triangles through each rank
+    private long triangles;      // total number of triangles
+    private long elapsedNanos;   // time taken by count
+
+    /**
+     * Creates a counter for a graph. Call count before reading any result.
+     * @param graph Graph to analyse
+     */
+    public TriangleCounter(CompactGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Counts every triangle of the graph, in parallel on the common fork-join pool.
+     * @return This counter
+     */
+    public TriangleCounter count() {
+        long start = System.nanoTime();
+        int n = graph.size();
+        buildForward(n);
+        trianglesByRank = new AtomicLongArray(n);
+        triangles = (n == 0) ? 0 : ForkJoinPool.commonPool().invoke(new CountRange(0, n));
+        elapsedNanos = System.nanoTime() - start;
+        return this;
+    }
+
+    /**
+     * Gets the number of triangles.
+     * @return Number of triangles in the graph
+     */
+    public long getTriangles() {
+        return triangles;
+    }
+
+    /**
+     * Gets the number of triangles a user belongs to.
+     * @param v Dense id of the user
+     * @return Number of triangles through the user
+     */
+    public long trianglesOf(int v) {
+        return trianglesByRank.get(rankOf[v]);
+    }
+
+    /**
+     * Gets the number of users adjacent to a user, counting a mutual follow once.
+     * @param v Dense id of the user
+     * @return Undirected degree
+     */
+    public int degreeOf(int v) {
+        return degree[v];
+    }
+
+    /**
+     * Computes the local clustering coefficient of a user: the fraction of pairs of its
+     * neighbours that are adjacent themselves.
+     * @param v Dense id of the user
+     * @return Coefficient between 0 and 1; 0 for a user with fewer than two neighbours
+     */
+    public double clusteringOf(int v) {
+        long d = degree[v];
+        return (d < 2) ? 0.0 : trianglesOf(v) / (d * (d - 1) / 2.0);
+    }
+
+    /**
+     * Averages the local clustering coefficient over all users.
+     * @return Average coefficient, 0 for an empty graph
+     */
+    public double averageClustering() {
+        int n = graph.size();
+        double sum = 0;
+        for (int v = 0; v < n; v++) {
+            sum += clusteringOf(v);
+        }
+        return (n == 0) ? 0.0 : sum / n;
+    }
+
+    /**
+     * Computes the global clustering coefficient (transitivity): three times the number of
+     * triangles over the number of connected triples.
+     * @return Coefficient between 0 and 1, 0 if the graph has no connected triple
+     */
+    public double globalClustering() {
+        double triples = 0;
+        for (int v = 0; v < graph.size(); v++) {
+            triples += (double) degree[v] * (degree[v] - 1) / 2;
+        }
+        return (triples == 0) ? 0.0 : 3.0 * triangles / triples;
+    }
+
+    /**
+     * Gets the time taken by count.
+     * @return Elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Builds the undirected degrees, the degree ranking and the forward lists.
+     * @param n Number of users
+     */
+    private void buildForward(int n) {
+        int[] outOffsets = graph.outOffsets();
+        int[] outTargets = graph.outTargets();
+        int[] inOffsets = graph.inOffsets();
+        int[] inSources = graph.inSources();
+        // Undirected neighbours: merge each sorted followee list with the sorted follower list
+        int[] offsets = new int[n + 1];
+        int[] neighbours = new int[outTargets.length + inSources.length];
+        int e = 0;
+        for (int v = 0; v < n; v++) {
+            int i = outOffsets[v];
+            int j = inOffsets[v];
+            while (i < outOffsets[v + 1] || j < inOffsets[v + 1]) {
+                int w;
+                if (j == inOffsets[v + 1] || (i < outOffsets[v + 1] && outTargets[i] < inSources[j])) {
+                    w = outTargets[i++];
+                } else if (i == outOffsets[v + 1] || inSources[j] < outTargets[i]) {
+                    w = inSources[j++];
+                } else {
+                    w = outTargets[i++];
+                    j++;
+                }
+                neighbours[e++] = w;
+            }
+            offsets[v + 1] = e;
+        }
+        degree = new int[n];
+        int maxDegree = 0;
+        for (int v = 0; v < n; v++) {
+            degree[v] = offsets[v + 1] - offsets[v];
+            maxDegree = Math.max(maxDegree, degree[v]);
+        }
+        // Rank by degree with a counting sort; equal degrees keep dense id order
+        int[] start = new int[maxDegree + 2];
+        for (int v = 0; v < n; v++) {
+            start[degree[v] + 1]++;
+        }
+        for (int d = 0; d <= maxDegree; d++) {
+            start[d + 1] += start[d];
+        }
+        rankOf = new int[n];
+        for (int v = 0; v < n; v++) {
+            rankOf[v] = start[degree[v]]++;
+        }
+        int[] forwardDegree = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                if (rankOf[neighbours[k]] > rankOf[v]) {
+                    forwardDegree[rankOf[v] + 1]++;
+                }
+            }
+        }
+        forwardOffsets = new int[n + 1];
+        for (int r = 0; r < n; r++) {
+            forwardOffsets[r + 1] = forwardOffsets[r] + forwardDegree[r + 1];
+        }
+        forward = new int[forwardOffsets[n]];
+        for (int v = 0; v < n; v++) {
+            int r = rankOf[v];
+            int f = forwardOffsets[r];
+            for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                if (rankOf[neighbours[k]] > r) {
+                    forward[f++] = rankOf[neighbours[k]];
+                }
+            }
+            java.util.Arrays.sort(forward, forwardOffsets[r], f);
+        }
+    }
+
+    /** Counts the triangles whose lowest-ranked corner lies in a range of ranks. */
+    private class CountRange extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from; // first rank
+        private final int to;   // end of the range (exclusive)
+
+        CountRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from > 1 && forwardOffsets[to] - forwardOffsets[from] > SPLIT_EDGES) {
+                // Split where half the forward edges lie on each side
+                int target = (forwardOffsets[from] + forwardOffsets[to]) >>> 1;
+                int middle = SortedInts.search(forwardOffsets, from, to, target);
+                middle = Math.min(Math.max((middle < 0) ? -middle - 1 : middle, from + 1), to - 1);
+                CountRange right = new CountRange(middle, to);
+                right.fork();
+                long left = new CountRange(from, middle).compute();
+                return left + right.join();
+            }
+            long total = 0;
+            for (int r = from; r < to; r++) {
+                long atR = 0;
+                int rEnd = forwardOffsets[r + 1];
+                for (int k = forwardOffsets[r]; k < rEnd; k++) {
+                    int s = forward[k];
+                    // Common higher-ranked neighbours of r and s close a triangle r < s < t
+                    int i = k + 1;
+                    int j = forwardOffsets[s];
+                    int sEnd = forwardOffsets[s + 1];
+                    long atS = 0;
+                    while (i < rEnd && j < sEnd) {
+                        if (forward[i] < forward[j]) {
+                            i++;
+                        } else if (forward[i] > forward[j]) {
+                            j++;
+                        } else {
+                            trianglesByRank.incrementAndGet(forward[i]);
+                            atS++;
+                            i++;
+                            j++;
+                        }
+                    }
+                    if (atS > 0) {
+                        trianglesByRank.addAndGet(s, atS);
+                        atR += atS;
+                    }
+                }
+                if (atR > 0) {
+                    trianglesByRank.addAndGet(r, atR);
+                }
+                total += atR;
+            }
+            return total;
+        }
+    }
+}
@@ -1,20 +1,34 @@
-/** Represents a user in a social network. A user is characterized by a name,
- *  a list of user names that s/he follows, and the list's size. */
+/** Represents a user in a social network. A user is characterized by a name
+ *  and the set of users that s/he follows.
+ *  Followees are stored as int ids: a user who belongs to a network uses the slots
+ *  of that network, and a standalone user numbers the names it follows in a name
+ *  dictionary of its own, so standalone users share no state. */
  public class User {
-    // Maximum number of users that a user can follow
-    static int maxfCount = 10;
     private String name;       // name of this user
-    private String[] follows;  // array of user names that this user follows
-    private int fCount;        // actual number of followees (must be <= maxfCount)
+    private int id;            // slot of this user in its network, -1 for a standalone user
+    private Network network;   // network this user belongs to, null for a standalone user
+    private IdSet follows;     // ids of the users that this user follows, keeping the order they were followed in
+    private NameTable followeeNames; // names a standalone user has followed, by id; null until its first follow
 
     /**
      * Creates a user with an empty list of followees.
      * @param name Name of the new user
      */
     public User(String name) {
+        this(name, null, -1);
+    }
+
+    /**
+     * Creates a user that belongs to a network.
+     * @param name Name of the new user
+     * @param network Network the user belongs to, or null for a standalone user
+     * @param id Id of the user within its network
+     */
+    User(String name, Network network, int id) {
         this.name = name;
-        follows = new String[maxfCount];
-        fCount = 0;
+        this.network = network;
+        this.id = id;
+        follows = new IdSet(true);
     }
 
     /**
@@ -24,10 +38,9 @@
      */
     public User(String name, boolean gettingStarted) {
         this(name);
-        follows[0] = "Foo";
-        follows[1] = "Bar";
-        follows[2] = "Baz";
-        fCount = 3;
+        addFollowee("Foo");
+        addFollowee("Bar");
+        addFollowee("Baz");
     }
 
     /**
@@ -38,12 +51,25 @@
         return name;
     }
 
+    /**
+     * Gets user's id.
+     * @return Slot of the user in its network, -1 for a standalone user
+     */
+    public int getId() {
+        return id;
+    }
+
     /**
      * Gets array of users this user follows.
-     * @return Array of followee names
+     * @return Array of followee names, in the order they were followed
      */
     public String[] getfFollows() {
-        return follows;
+        int[] ids = follows.toOrderedArray();
+        String[] names = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            names[i] = nameOf(ids[i]);
+        }
+        return names;
     }
 
     /**
@@ -51,41 +77,101 @@
      * @return Count of followees
      */
     public int getfCount() {
-        return fCount;
+        return follows.size();
+    }
+
+    /**
+     * Gets the set of ids of the users this user follows. The set must not be modified.
+     * @return Followee ids
+     */
+    IdSet followees() {
+        return follows;
+    }
+
+    /**
+     * Replaces the followee set, either with the whole set of a user loaded in bulk or with a
+     * private copy of the current set made before changing it. The caller is responsible for the
+     * network's follower index.
+     * @param followees Ids of the users this user follows, in a set that keeps their order
+     */
+    void setFollowees(IdSet followees) {
+        follows = followees;
+    }
+
+    /**
+     * Turns a user who was removed from its network into a standalone user with no followees.
+     */
+    void detach() {
+        network = null;
+        id = -1;
+        follows = new IdSet(true);
+        followeeNames = null;
     }
 
     /**
-     * Checks if user follows another user.
+     * Checks if user follows another user. The name is resolved case-insensitively without allocating.
      * @param name Name to check
      * @return true if this user follows the specified name
      */
     public boolean follows(String name) {
-        name = ChangeName(name);
-        for (int i = 0; i < fCount; i++) {
-            if (follows[i] != null && follows[i].equals(name)) {
-                return true;
-            }
-        }
-        return false;
+        int followee = idOf(name);
+        return followee != -1 && follows(followee);
+    }
+
+    /**
+     * Checks if user follows the user with the given id.
+     * @param followee Id of the user to check
+     * @return true if this user follows the specified id
+     */
+    public boolean follows(int followee) {
+        return follows.contains(followee);
     }
 
     /**
      * Adds a new user to follow.
+     * A user who belongs to a network can only follow users of that network.
      * @param name Name of user to follow
-     * @return true if successfully added, false if already following or list full
+     * @return true if successfully added, false if already following
      */
     public boolean addFollowee(String name) {
-        name = ChangeName(name);
-        for (int i = 0; i < fCount; i++) {
-            if (follows[i] != null && follows[i].equals(name)) {
+        if (name == null) {
+            return false;
+        }
+        if (network != null) {
+            int followee = network.slotOf(name);
+            return followee != -1 && addFollowee(followee);
+        }
+        if (followeeNames == null) {
+            followeeNames = new NameTable(4);
+        }
+        int followee = followeeNames.find(name);
+        if (followee == -1) {
+            // First time this user follows the name: register it under its capitalized spelling
+            followee = followeeNames.intern(ChangeName(name));
+        }
+        return addFollowee(followee);
+    }
+
+    /**
+     * Adds the user with the given id to the follow list.
+     * @param followee Id of user to follow: a slot of the user's network, or for a standalone user an id
+     *                 of a name it has followed before
+     * @return true if successfully added, false if already following, the id names no user or it is this user's own
+     */
+    public boolean addFollowee(int followee) {
+        if (network != null) {
+            if (followee == id || network.getUserAt(followee) == null || follows.contains(followee)) {
                 return false;
             }
-        }
-        if (fCount < maxfCount) {
-            follows[fCount++] = name;
+            network.beforeFollow(id, followee);
+            follows.add(followee);
+            network.followed(id, followee);
             return true;
         }
-        return false;
+        if (followeeNames == null || followee < 0 || followee >= followeeNames.size()) {
+            return false;
+        }
+        return follows.add(followee);
     }
 
     /**
@@ -94,68 +180,101 @@
      * @return true if successfully removed, false if user not found
      */
     public boolean removeFollowee(String name) {
-        if (name == null) {
+        int followee = idOf(name);
+        return followee != -1 && removeFollowee(followee);
+    }
+
+    /**
+     * Removes the user with the given id from the follow list.
+     * @param followee Id of user to unfollow
+     * @return true if successfully removed, false if user not found
+     */
+    public boolean removeFollowee(int followee) {
+        if (!follows.contains(followee)) {
             return false;
         }
-
-        name = ChangeName(name);
-        for (int i = 0; i < fCount; i++) {
-            if (follows[i] != null && follows[i].equals(name)) {
-                for (int j = i; j < fCount - 1; j++) {
-                    follows[j] = follows[j + 1];
-                }
-                follows[--fCount] = null;
-                return true;
-            }
+        if (network != null) {
+            network.beforeUnfollow(id, followee);
         }
-        return false;
+        follows.remove(followee);
+        if (network != null) {
+            network.unfollowed(id, followee);
+        }
+        return true;
     }
 
     /**
      * Counts mutual followees between this user and another.
+     * Members of the same network intersect their followee sets with the strategy that suits their sizes
+     * (see IdSet.intersectionSize); other users are compared by name.
      * @param other User to compare with
      * @return Number of mutual followees
      */
     public int countMutual(User other) {
+        if (network != null && network == other.network) {
+            return IdSet.intersectionSize(follows, other.follows);
+        }
+        // The two users number their followees differently, so compare names instead
         int count = 0;
-        for (int i = 0; i < fCount; i++) {
-            for (int j = 0; j < other.fCount; j++) {
-                if (follows[i] != null && follows[i].equals(other.follows[j])) {
-                    count++;
-                }
+        for (int p = 0; p < follows.positions(); p++) {
+            int followee = follows.idAt(p);
+            if (followee >= 0 && other.follows(nameOf(followee))) {
+                count++;
             }
         }
         return count;
     }
 
     /**
-     * Checks if two users follow each other.
+     * Checks if two users follow each other. Members of the same network are looked up in its friends index.
      * @param other User to check friendship with
      * @return true if users mutually follow each other
      */
     public boolean isFriendOf(User other) {
-        if (!other.follows(this.name)) {
-            return false;
-        }
-
-        for (int i = 0; i < fCount; i++) {
-            if (this.follows[i] != null && this.follows[i].equals(other.getName())) {
-                return true;
-            }
+        if (network != null && network == other.network) {
+            return network.areFriends(id, other.id);
         }
-        return false;
+        return other.follows(this.name) && this.follows(other.name);
     }
 
     /**
      * Creates a string representation of the user.
-     * @return String describing user and their followees
+     * @return String describing user and their followees, in the order they were followed
      */
     public String toString() {
-        String ans = name + " -> ";
-        for (int i = 0; i < fCount; i++) {
-            ans = ans + follows[i] + " ";
+        StringBuilder ans = new StringBuilder();
+        try {
+            writeTo(ans);
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
         }
-        return ans;
+        return ans.toString();
+    }
+
+    /**
+     * Writes the same text as toString, in time linear in the number of followees.
+     * @param out Where to write the text
+     * @throws java.io.IOException If out fails
+     */
+    public void writeTo(Appendable out) throws java.io.IOException {
+        out.append(name).append(" -> ");
+        for (int p = 0; p < follows.orderPositions(); p++) {
+            int followee = follows.orderedAt(p);
+            if (followee >= 0) {
+                out.append(nameOf(followee)).append(' ');
+            }
+        }
+    }
+
+    /**
+     * Writes the same text as toString to a channel, encoded as UTF-8.
+     * @param channel Where to write the text
+     * @throws java.io.IOException If the channel fails
+     */
+    public void writeTo(java.nio.channels.WritableByteChannel channel) throws java.io.IOException {
+        ChannelWriter out = new ChannelWriter(channel);
+        writeTo(out);
+        out.flush();
     }
 
     /**
@@ -169,4 +288,25 @@
         name = First + name.substring(1);
         return name;
     }
-}
\ No newline at end of file
+
+    /**
+     * Finds the id of a name this user may follow.
+     * @param name Name to look up (case-insensitive)
+     * @return Slot of the name in the user's network, or its id in the user's own dictionary; -1 if unknown
+     */
+    private int idOf(String name) {
+        if (network != null) {
+            return network.slotOf(name);
+        }
+        return (followeeNames == null) ? -1 : followeeNames.find(name);
+    }
+
+    /**
+     * Gets the name behind a followee id.
+     * @param followee Id of a followee
+     * @return Name of the followee
+     */
+    private String nameOf(int followee) {
+        return (network != null) ? network.getUserAt(followee).getName() : followeeNames.nameOf(followee);
+    }
+}
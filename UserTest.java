@@ -32,7 +32,7 @@ public class UserTest {
         alex.addFollowee("Idan");
         alex.addFollowee("Uri");
         alex.addFollowee("Maya");
-        alex.addFollowee("Dan"); // Exceeds the array limit           
+        alex.addFollowee("Dan");
         System.out.println(alex);
 
         System.out.println("\n...Removing Neta...");
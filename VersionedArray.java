@@ -0,0 +1,76 @@
+/** A growable array of references that can be frozen in O(1) time.
+ *  Elements live in fixed-size chunks reached through a directory. Freezing hands out the
+ *  current directory and starts a new version; the next write copies the directory and the
+ *  chunk it touches (each at most once per version), so a frozen directory never changes
+ *  while the live array keeps being written. Without a freeze, writes happen in place. */
+public class VersionedArray {
+    static final int CHUNK_BITS = 10;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Fields
+    private Object[][] directory; // chunks of elements; directory[i >> CHUNK_BITS][i & CHUNK_MASK] is element i
+    private int[] chunkVersion;   // version in which each chunk was last copied; older chunks may be frozen
+    private int directoryVersion; // version in which the directory was last copied
+    private int version;          // current version, advanced by freeze
+
+    /**
+     * Creates an empty array.
+     */
+    public VersionedArray() {
+        directory = new Object[0][];
+        chunkVersion = new int[0];
+    }
+
+    /**
+     * Gets an element of the live array.
+     * @param i Index of the element
+     * @return The element, null if it was never set
+     */
+    public Object get(int i) {
+        return get(directory, i);
+    }
+
+    /**
+     * Gets an element of a frozen directory.
+     * @param directory Directory returned by freeze
+     * @param i Index of the element
+     * @return The element, null if it was never set
+     */
+    public static Object get(Object[][] directory, int i) {
+        int chunk = i >> CHUNK_BITS;
+        return (chunk < directory.length) ? directory[chunk][i & CHUNK_MASK] : null;
+    }
+
+    /**
+     * Sets an element of the live array, copying whatever is shared with a frozen directory first.
+     * @param i Index of the element
+     * @param value New value
+     */
+    public void set(int i, Object value) {
+        int chunk = i >> CHUNK_BITS;
+        if (directoryVersion != version || chunk >= directory.length) {
+            int length = Math.max(directory.length, chunk + 1);
+            directory = java.util.Arrays.copyOf(directory, length);
+            chunkVersion = java.util.Arrays.copyOf(chunkVersion, length);
+            directoryVersion = version;
+        }
+        if (directory[chunk] == null) {
+            directory[chunk] = new Object[CHUNK_SIZE];
+            chunkVersion[chunk] = version;
+        } else if (chunkVersion[chunk] != version) {
+            directory[chunk] = directory[chunk].clone();
+            chunkVersion[chunk] = version;
+        }
+        directory[chunk][i & CHUNK_MASK] = value;
+    }
+
+    /**
+     * Freezes the current contents. Later writes leave the returned directory untouched.
+     * @return Directory to read with get(Object[][], int)
+     */
+    public Object[][] freeze() {
+        version++;
+        return directory;
+    }
+}